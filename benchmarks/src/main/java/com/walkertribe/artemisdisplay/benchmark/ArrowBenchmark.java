@@ -0,0 +1,84 @@
+package com.walkertribe.artemisdisplay.benchmark;
+
+import java.awt.geom.Path2D;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walkertribe.artemisdisplay.render.ArrowShape;
+import com.walkertribe.artemisdisplay.render.PolygonBuilder;
+import com.walkertribe.artemisdisplay.util.Trig;
+
+/**
+ * Measures building a map arrow with a new PolygonBuilder against placing a reused ArrowShape, and
+ * Math.sin() against the Trig table. Headings cycle through a fixed random set so that neither is
+ * measured at a single constant angle.
+ * @author rjwut
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ArrowBenchmark {
+  private static final int HEADING_COUNT = 1024;
+
+  private double[] headings = new double[HEADING_COUNT];
+  private int index;
+  private ArrowShape arrow = new ArrowShape()
+      .add(0, 1)
+      .add(Math.PI * 0.8, 1)
+      .add(Math.PI, 0.5)
+      .add(Math.PI * 1.2, 1);
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+
+    for (int i = 0; i < HEADING_COUNT; i++) {
+      headings[i] = random.nextDouble() * Math.PI * 2;
+    }
+  }
+
+  @Benchmark
+  public Path2D.Double polygonBuilder() {
+    double heading = nextHeading();
+    return new PolygonBuilder(960, 540)
+        .add(heading, 12)
+        .add(heading + Math.PI * 0.8, 12)
+        .add(heading + Math.PI, 6)
+        .add(heading + Math.PI * 1.2, 12)
+        .toPath();
+  }
+
+  @Benchmark
+  public Path2D.Double arrowShape() {
+    return arrow.place(960, 540, nextHeading(), 12).getPath();
+  }
+
+  @Benchmark
+  public double mathSin() {
+    return Math.sin(nextHeading());
+  }
+
+  @Benchmark
+  public double trigSin() {
+    return Trig.DEFAULT.sin(nextHeading());
+  }
+
+  private double nextHeading() {
+    index = index + 1 & HEADING_COUNT - 1;
+    return headings[index];
+  }
+}
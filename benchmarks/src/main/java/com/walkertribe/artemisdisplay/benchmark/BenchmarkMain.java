@@ -0,0 +1,43 @@
+package com.walkertribe.artemisdisplay.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks. This accepts the same arguments as the standard JMH runner, but unless told
+ * otherwise, it writes the results in JSON format to a file named after the version of Artemis
+ * Display being measured, so results can be compared from release to release.
+ * @author rjwut
+ */
+public class BenchmarkMain {
+  public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+    CommandLineOptions cmd = new CommandLineOptions(args);
+
+    if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+        || cmd.shouldListResultFormats()) {
+      Main.main(args);
+      return;
+    }
+
+    ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmd);
+
+    if (!cmd.getResultFormat().hasValue()) {
+      builder.resultFormat(ResultFormatType.JSON);
+    }
+
+    if (!cmd.getResult().hasValue()) {
+      String version = BenchmarkMain.class.getPackage().getImplementationVersion();
+      builder.result("jmh-result-" + (version != null ? version : "dev") + ".json");
+    }
+
+    new Runner(builder.build()).run();
+  }
+}
@@ -0,0 +1,56 @@
+package com.walkertribe.artemisdisplay.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walkertribe.artemisdisplay.ArtemisDisplay;
+import com.walkertribe.artemisdisplay.BenchmarkHooks;
+import com.walkertribe.artemisdisplay.Configuration;
+
+/**
+ * Measures the Canvas impact effect (dimming plus static) at a moderate and at full strength.
+ * @author rjwut
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CanvasImpactBenchmark {
+  @Param({ "0.1", "0.3" })
+  public float strength;
+
+  private ArtemisDisplay app;
+  private OffscreenTarget target;
+
+  @Setup
+  public void setUp() {
+    Configuration config = new Configuration(new String[] { "--display", "alert", "--dim", "--static" });
+    app = BenchmarkHooks.createApp(config);
+    BenchmarkHooks.spawn(app, new SyntheticWorld(0).getPlayer());
+    target = new OffscreenTarget(false);
+  }
+
+  @TearDown
+  public void tearDown() {
+    target.dispose();
+  }
+
+  @Benchmark
+  public void renderImpact() {
+    BenchmarkHooks.renderImpact(app, target.getGraphics(), target.getBounds(), strength);
+  }
+}
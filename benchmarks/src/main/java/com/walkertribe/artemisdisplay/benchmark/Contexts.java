@@ -0,0 +1,66 @@
+package com.walkertribe.artemisdisplay.benchmark;
+
+import com.walkertribe.artemisdisplay.HullTable;
+import com.walkertribe.ian.Context;
+import com.walkertribe.ian.DefaultContext;
+import com.walkertribe.ian.FilePathResolver;
+
+/**
+ * Provides the IAN Context for benchmarks. If the artemis.install system property is set to an
+ * Artemis install directory, a Context for that directory is returned; otherwise, this returns
+ * null, and the benchmarks run the way the display does when no install directory is found.
+ * Benchmarks that can't run without vessel data will fail in that case.
+ * @author rjwut
+ */
+public final class Contexts {
+  public static final String INSTALL_PROPERTY = "artemis.install";
+
+  private static Context ctx;
+  private static HullTable hulls;
+
+  private Contexts() {
+    // prevent instantiation
+  }
+
+  /**
+   * Returns the Context, or null if the artemis.install property isn't set.
+   */
+  public static synchronized Context get() {
+    if (ctx == null) {
+      String path = System.getProperty(INSTALL_PROPERTY);
+
+      if (path != null) {
+        ctx = new DefaultContext(new FilePathResolver(path));
+      }
+    }
+
+    return ctx;
+  }
+
+  /**
+   * Returns a HullTable for the Context, or null if the artemis.install property isn't set. The
+   * table is built in the background, as it is by the Configuration.
+   */
+  public static synchronized HullTable getHullTable() {
+    if (hulls == null && get() != null) {
+      hulls = new HullTable(ctx);
+      hulls.start();
+    }
+
+    return hulls;
+  }
+
+  /**
+   * Returns the Context, throwing an IllegalStateException if the artemis.install property isn't
+   * set.
+   */
+  public static Context require() {
+    Context context = get();
+
+    if (context == null) {
+      throw new IllegalStateException("This benchmark requires -D" + INSTALL_PROPERTY + "=<Artemis install directory>");
+    }
+
+    return context;
+  }
+}
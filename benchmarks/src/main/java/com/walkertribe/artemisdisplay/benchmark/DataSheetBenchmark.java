@@ -0,0 +1,92 @@
+package com.walkertribe.artemisdisplay.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walkertribe.artemisdisplay.ArtemisDisplay;
+import com.walkertribe.artemisdisplay.BenchmarkHooks;
+import com.walkertribe.artemisdisplay.Configuration;
+import com.walkertribe.artemisdisplay.render.DataSheet;
+import com.walkertribe.ian.world.ArtemisBase;
+import com.walkertribe.ian.world.ArtemisNpc;
+import com.walkertribe.ian.world.ArtemisObject;
+
+/**
+ * Measures rebuilding a DataSheet after its target has been updated, rebuilding and rendering it,
+ * and rendering it when nothing has changed, which is what the target displays do on most frames.
+ * @author rjwut
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DataSheetBenchmark {
+  @Param({ "NPC", "BASE", "PLAYER" })
+  public String targetType;
+
+  private ArtemisDisplay app;
+  private SyntheticWorld world;
+  private ArtemisObject target;
+  private OffscreenTarget offscreen;
+  private DataSheet sheet;
+
+  @Setup
+  public void setUp() {
+    world = new SyntheticWorld(100);
+    app = BenchmarkHooks.createApp(new Configuration(new String[] { "--display", "science-target" }));
+
+    switch (targetType) {
+    case "NPC":
+      target = world.getFirst(ArtemisNpc.class);
+      break;
+    case "BASE":
+      target = world.getFirst(ArtemisBase.class);
+      break;
+    default:
+      target = world.getPlayer();
+    }
+
+    offscreen = new OffscreenTarget(false);
+    sheet = new DataSheet(app);
+    sheet.update(target, world.getPlayer());
+  }
+
+  @TearDown
+  public void tearDown() {
+    offscreen.dispose();
+  }
+
+  @Benchmark
+  public DataSheet rebuild() {
+    sheet.invalidate();
+    sheet.update(target, world.getPlayer());
+    return sheet;
+  }
+
+  @Benchmark
+  public void rebuildAndRender() {
+    sheet.invalidate();
+    sheet.update(target, world.getPlayer());
+    sheet.render(offscreen.getGraphics(), offscreen.getBounds());
+  }
+
+  @Benchmark
+  public void render() {
+    sheet.update(target, world.getPlayer());
+    sheet.render(offscreen.getGraphics(), offscreen.getBounds());
+  }
+}
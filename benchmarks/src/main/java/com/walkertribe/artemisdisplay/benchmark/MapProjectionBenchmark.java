@@ -0,0 +1,71 @@
+package com.walkertribe.artemisdisplay.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walkertribe.artemisdisplay.render.MapProjection;
+import com.walkertribe.ian.enums.GameType;
+
+/**
+ * Measures MapProjection.render() at LRS and TACTICAL zoom over worlds of increasing size, drawing
+ * through Java2D and through the IntRasterizer.
+ * @author rjwut
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MapProjectionBenchmark {
+  @Param({ "100", "1000", "10000" })
+  public int objectCount;
+
+  @Param({ "LRS", "TACTICAL" })
+  public MapProjection.Mode mode;
+
+  @Param({ "false", "true" })
+  public boolean antialias;
+
+  @Param({ "false", "true" })
+  public boolean intRaster;
+
+  private SyntheticWorld world;
+  private MapProjection projection;
+  private OffscreenTarget target;
+
+  @Setup
+  public void setUp() {
+    world = new SyntheticWorld(objectCount);
+    projection = new MapProjection(world.getWorld(), Contexts.getHullTable(), mode);
+    projection.setIntRaster(intRaster);
+    target = new OffscreenTarget(antialias);
+  }
+
+  @TearDown
+  public void tearDown() {
+    target.dispose();
+  }
+
+  @Benchmark
+  public void render() {
+    projection.render(target.getGraphics(), world.getPlayer(), GameType.SIEGE);
+  }
+
+  @Benchmark
+  public void renderBorderWar() {
+    projection.render(target.getGraphics(), world.getPlayer(), GameType.BORDER_WAR);
+  }
+}
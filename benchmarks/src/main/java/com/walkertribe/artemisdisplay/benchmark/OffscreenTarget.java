@@ -0,0 +1,63 @@
+package com.walkertribe.artemisdisplay.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * An off-screen image to render into, with a Graphics2D whose clip is set to the whole image, the
+ * way the Canvas hands it to a Display.
+ * @author rjwut
+ */
+public class OffscreenTarget {
+  public static final int WIDTH = 1920;
+  public static final int HEIGHT = 1080;
+
+  private BufferedImage image;
+  private Graphics2D g;
+  private Rectangle bounds;
+
+  /**
+   * Creates a full HD target, with or without antialiasing.
+   */
+  public OffscreenTarget(boolean antialias) {
+    image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    g = image.createGraphics();
+    bounds = new Rectangle(0, 0, WIDTH, HEIGHT);
+    g.setClip(bounds);
+
+    if (antialias) {
+      g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    }
+  }
+
+  /**
+   * Returns the Graphics2D object for the image.
+   */
+  public Graphics2D getGraphics() {
+    return g;
+  }
+
+  /**
+   * Returns the bounds of the image.
+   */
+  public Rectangle getBounds() {
+    return bounds;
+  }
+
+  /**
+   * Returns the image.
+   */
+  public BufferedImage getImage() {
+    return image;
+  }
+
+  /**
+   * Releases the Graphics2D object.
+   */
+  public void dispose() {
+    g.dispose();
+  }
+}
@@ -0,0 +1,127 @@
+package com.walkertribe.artemisdisplay.benchmark;
+
+import java.util.Random;
+
+import com.walkertribe.ian.protocol.core.world.ObjectUpdatePacket;
+import com.walkertribe.ian.world.Artemis;
+import com.walkertribe.ian.world.ArtemisBase;
+import com.walkertribe.ian.world.ArtemisNebula;
+import com.walkertribe.ian.world.ArtemisNpc;
+import com.walkertribe.ian.world.ArtemisObject;
+import com.walkertribe.ian.world.ArtemisPlayer;
+import com.walkertribe.ian.world.ArtemisTorpedo;
+import com.walkertribe.ian.world.BaseArtemisObject;
+import com.walkertribe.ian.world.World;
+
+/**
+ * Builds a World populated with a repeatable mix of objects scattered across the map, plus the
+ * player ship (ship index 0) at the center. The mix is roughly what a busy game looks like: mostly
+ * NPC ships and torpedoes, some nebulae, and a handful of bases. The same object count always
+ * produces the same World.
+ * @author rjwut
+ */
+public class SyntheticWorld {
+  private static final int PLAYER_ID = 1;
+  private static final byte PLAYER_SIDE = 2;
+  private static final byte ENEMY_SIDE = 1;
+
+  private World world = new World();
+  private ArtemisPlayer player;
+  private Random random = new Random(0);
+
+  /**
+   * Creates a World with the given number of objects, not counting the player ship.
+   */
+  public SyntheticWorld(int objectCount) {
+    ObjectUpdatePacket pkt = new ObjectUpdatePacket();
+    player = new ArtemisPlayer(PLAYER_ID, 0);
+    player.setShipIndex((byte) 0);
+    player.setSide(PLAYER_SIDE);
+    player.setName("Artemis");
+    player.setX(Artemis.MAP_SIZE / 2);
+    player.setY(0);
+    player.setZ(Artemis.MAP_SIZE / 2);
+    player.setHeading(0);
+    pkt.addObject(player);
+
+    for (int i = 0; i < objectCount; i++) {
+      pkt.addObject(createObject(PLAYER_ID + 1 + i, i));
+    }
+
+    world.onObjectUpdate(pkt);
+    ArtemisPlayer stored = world.getPlayer(0);
+
+    if (stored != null) {
+      player = stored;
+    }
+  }
+
+  /**
+   * Returns the World.
+   */
+  public World getWorld() {
+    return world;
+  }
+
+  /**
+   * Returns the player ship.
+   */
+  public ArtemisPlayer getPlayer() {
+    return player;
+  }
+
+  /**
+   * Returns the first object of the given class in the World.
+   */
+  public <T extends ArtemisObject> T getFirst(Class<T> clazz) {
+    for (ArtemisObject obj : world.getAll((o1, o2) -> o1.getId() - o2.getId())) {
+      if (clazz.isInstance(obj)) {
+        return clazz.cast(obj);
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Creates the object with the given ID. The index determines what kind of object it is.
+   */
+  private ArtemisObject createObject(int id, int index) {
+    int kind = index % 20;
+    BaseArtemisObject obj;
+
+    if (kind == 0) {
+      ArtemisBase base = new ArtemisBase(id, 0);
+      base.setName("DS" + (index / 20 + 1));
+      base.setSide(PLAYER_SIDE);
+      base.setShieldsFront(random.nextFloat() * 1000);
+      base.setShieldsFrontMax(1000);
+      obj = base;
+    } else if (kind < 4) {
+      obj = new ArtemisNebula(id, 0);
+    } else if (kind < 9) {
+      ArtemisTorpedo torpedo = new ArtemisTorpedo(id, 0);
+      torpedo.setHeading(randomHeading());
+      obj = torpedo;
+    } else {
+      ArtemisNpc npc = new ArtemisNpc(id, 0);
+      npc.setName((kind % 2 == 0 ? "K" : "S") + index);
+      npc.setSide(kind % 2 == 0 ? ENEMY_SIDE : PLAYER_SIDE);
+      npc.setHeading(randomHeading());
+      npc.setShieldsFront(random.nextFloat() * 80);
+      npc.setShieldsFrontMax(80);
+      npc.setShieldsRear(random.nextFloat() * 80);
+      npc.setShieldsRearMax(80);
+      obj = npc;
+    }
+
+    obj.setX(random.nextFloat() * Artemis.MAP_SIZE);
+    obj.setY(0);
+    obj.setZ(random.nextFloat() * Artemis.MAP_SIZE);
+    return obj;
+  }
+
+  private float randomHeading() {
+    return (float) ((random.nextFloat() * 2 - 1) * Math.PI);
+  }
+}
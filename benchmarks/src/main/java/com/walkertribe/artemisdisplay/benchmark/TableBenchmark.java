@@ -0,0 +1,85 @@
+package com.walkertribe.artemisdisplay.benchmark;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walkertribe.artemisdisplay.i18n.LocaleData;
+import com.walkertribe.artemisdisplay.render.Table;
+
+/**
+ * Measures building and rendering a Table.Body with a layout similar to the bases display.
+ * @author rjwut
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TableBenchmark {
+  @Param({ "5", "20", "100" })
+  public int rowCount;
+
+  private Table<Integer> table;
+  private List<Integer> rows = new ArrayList<>();
+  private OffscreenTarget target;
+
+  @Setup
+  public void setUp() {
+    table = new Table<Integer>()
+        .column("NAME", cell(Color.WHITE, i -> "DS" + i), 6)
+        .column("BRG", cell(Color.GRAY, i -> Integer.toString(i * 37 % 360)), 3)
+        .column("DIST", cell(Color.GRAY, i -> Integer.toString(i * 1009 % 100000)), 6)
+        .column("SHIELDS", cell(Color.GREEN, i -> (i * 7 % 100) + "%"), 7)
+        .column("TYPE", cell(Color.CYAN, i -> "Command"), 10);
+
+    for (int i = 0; i < rowCount; i++) {
+      rows.add(i);
+    }
+
+    target = new OffscreenTarget(false);
+  }
+
+  @TearDown
+  public void tearDown() {
+    target.dispose();
+  }
+
+  @Benchmark
+  public void render() {
+    table.body().rows(rows).render(target.getGraphics());
+  }
+
+  /**
+   * Returns a CellRenderer which uses the given Color and text function.
+   */
+  private static Table.CellRenderer<Integer> cell(Color color, IntFunction<String> fn) {
+    return new Table.CellRenderer<Integer>() {
+      @Override
+      public Color getColor(Integer value) {
+        return color;
+      }
+
+      @Override
+      public String toString(LocaleData localeData, Integer value) {
+        return fn.apply(value);
+      }
+    };
+  }
+}
@@ -0,0 +1,61 @@
+package com.walkertribe.artemisdisplay.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walkertribe.artemisdisplay.Canvas;
+import com.walkertribe.artemisdisplay.TextFitter;
+
+/**
+ * Measures TextFitter.computeMetrics() for one-line and multi-line text.
+ * @author rjwut
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TextFitterBenchmark {
+  private static final String ONE_LINE = "RED ALERT";
+  private static final String MULTI_LINE = "Waiting for 192.168.1.7\nShip 1 standing by\nPress ESC to close";
+
+  @Param({ "false", "true" })
+  public boolean multiLine;
+
+  @Param({ "false", "true" })
+  public boolean monospace;
+
+  private TextFitter fitter;
+  private OffscreenTarget target;
+  private String text;
+
+  @Setup
+  public void setUp() {
+    fitter = Canvas.getTextFitter(monospace).padding(0.1f);
+    text = multiLine ? MULTI_LINE : ONE_LINE;
+    target = new OffscreenTarget(false);
+  }
+
+  @TearDown
+  public void tearDown() {
+    target.dispose();
+  }
+
+  @Benchmark
+  public TextFitter.Metrics computeMetrics() {
+    return fitter.computeMetrics(target.getGraphics(), target.getBounds(), text);
+  }
+}
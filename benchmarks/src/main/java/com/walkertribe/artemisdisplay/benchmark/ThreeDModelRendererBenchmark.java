@@ -0,0 +1,84 @@
+package com.walkertribe.artemisdisplay.benchmark;
+
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walkertribe.artemisdisplay.render.RenderMode;
+import com.walkertribe.artemisdisplay.render.ThreeDModelRenderer;
+import com.walkertribe.artemisdisplay.render.ThreeDRenderParams;
+import com.walkertribe.ian.model.Model;
+import com.walkertribe.ian.util.Grid;
+import com.walkertribe.ian.vesseldata.Vessel;
+
+/**
+ * Measures ThreeDModelRenderer.render() for each RenderMode, using the first player-capable vessel
+ * (one with a system grid) and the same view parameters as the systems display. Requires
+ * -Dartemis.install.
+ * @author rjwut
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ThreeDModelRendererBenchmark {
+  @Param({ "WIREFRAME", "SOLID", "SOLID_WIREFRAME" })
+  public RenderMode renderMode;
+
+  @Param({ "false", "true" })
+  public boolean withGrid;
+
+  private ThreeDModelRenderer renderer = new ThreeDModelRenderer();
+  private ThreeDRenderParams params = new ThreeDRenderParams();
+  private Model model;
+  private Grid grid;
+  private OffscreenTarget target;
+  private double theta;
+
+  @Setup
+  public void setUp() {
+    Vessel vessel = Contexts.require().getVesselData().getVessels().stream()
+        .filter(v -> v.getGrid() != null && v.getModel() != null)
+        .findFirst()
+        .orElseThrow(() -> new IllegalStateException("No vessel with a model and system grid found"));
+    model = vessel.getModel();
+    grid = withGrid ? vessel.getGrid() : null;
+    target = new OffscreenTarget(false);
+    double size = Math.min(OffscreenTarget.WIDTH, OffscreenTarget.HEIGHT) * 0.5;
+    params.renderMode(renderMode)
+        .fillColor(Color.DARK_GRAY)
+        .lineColor(Color.GREEN)
+        .gridColor(Color.DARK_GRAY)
+        .rotateX(4 * Math.PI / 3)
+        .offsetX(OffscreenTarget.WIDTH / 2)
+        .offsetZ(OffscreenTarget.HEIGHT / 2)
+        .scale(model.computeScale(size));
+  }
+
+  @TearDown
+  public void tearDown() {
+    target.dispose();
+  }
+
+  @Benchmark
+  public void render() {
+    // Spin the model like the systems display does, so sorting sees a different order each time
+    theta += 0.05;
+    params.rotateZ(theta);
+    renderer.render(target.getGraphics(), model, params, grid);
+  }
+}
@@ -1,7 +1,11 @@
 package com.walkertribe.artemisdisplay;
 
+import java.awt.GraphicsEnvironment;
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
@@ -10,10 +14,17 @@ import javax.swing.UnsupportedLookAndFeelException;
 import javax.swing.UIManager.LookAndFeelInfo;
 
 import com.walkertribe.artemisdisplay.i18n.LocaleData;
+import com.walkertribe.artemisdisplay.metrics.FlightRecorder;
+import com.walkertribe.artemisdisplay.metrics.FlightRecorderListener;
+import com.walkertribe.artemisdisplay.metrics.MetricsServer;
+import com.walkertribe.artemisdisplay.metrics.PacketCounter;
+import com.walkertribe.artemisdisplay.metrics.RenderStats;
+import com.walkertribe.artemisdisplay.metrics.StartupTimer;
 import com.walkertribe.ian.enums.Console;
 import com.walkertribe.ian.iface.ArtemisNetworkInterface;
 import com.walkertribe.ian.iface.DisconnectEvent;
 import com.walkertribe.ian.iface.Listener;
+import com.walkertribe.ian.protocol.ArtemisPacket;
 import com.walkertribe.ian.protocol.core.EndGamePacket;
 import com.walkertribe.ian.protocol.core.eng.EngRequestGridUpdatePacket;
 import com.walkertribe.ian.protocol.core.setup.AllShipSettingsPacket;
@@ -32,9 +43,11 @@ import com.walkertribe.ian.world.WorldListener;
  */
 public class ArtemisDisplay implements Connector.Listener, WorldListener {
   public static void main(String[] args) {
+    StartupTimer.start();
+
     try {
-      setLookAndFeel();
       Configuration config = new Configuration(args);
+      StartupTimer.mark("Parse configuration");
 
       if (config.getAction() == Configuration.Action.HELP) {
         Configuration.printUsage();
@@ -46,11 +59,18 @@ public class ArtemisDisplay implements Connector.Listener, WorldListener {
         return;
       }
 
-      LocaleData.getSupportedLocales(); // initialize i18n
+      if (config.getAction() == Configuration.Action.HEADLESS) {
+        new HeadlessRenderer(config).run();
+        return;
+      }
 
       if (!config.isForceDialog() && config.isReady()) {
+        // No Swing components are shown, so skip the look and feel; locales are loaded on demand
         new ArtemisDisplay(config);
       } else {
+        setLookAndFeel();
+        LocaleData.getSupportedLocales(); // initialize i18n
+        StartupTimer.mark("Look and feel and locales");
         SwingUtilities.invokeLater(() -> {
           new ConfigDialog(config, finalConfig -> {
             new ArtemisDisplay(finalConfig);
@@ -69,6 +89,12 @@ public class ArtemisDisplay implements Connector.Listener, WorldListener {
         pw.append('\n').append(trace[i].toString());
       }
 
+      if (GraphicsEnvironment.isHeadless()) {
+        System.err.println(sw.toString());
+        System.exit(1);
+      }
+
+      setLookAndFeel();
       JOptionPane.showMessageDialog(
         null,
         sw.toString(),
@@ -97,25 +123,82 @@ public class ArtemisDisplay implements Connector.Listener, WorldListener {
 
   private Configuration config;
   private CanvasFrame frame;
+  private Canvas canvas;
   private Thread connectorThread;
   private ArtemisNetworkInterface iface;
   private World world = new World();
   private Grid grid;
+  private SystemHealthTracker systemHealth;
   private boolean ready;
+  private AtomicLong unrenderedPacketTime = new AtomicLong();
+  private volatile long frameTime;
+  private RenderStats renderStats;
+  private FlightRecorderListener flightRecorderListener;
+  private PacketCounter packetCounter;
+  private MetricsServer metricsServer;
+  private QualityGovernor governor;
+  private Warmup warmup;
 
   /**
    * Initializes the configuration, system grid, and World, then launches the window and starts
    * listening for the server.
    */
   public ArtemisDisplay(final Configuration config) {
+    this(config, false);
+  }
+
+  /**
+   * Initializes the configuration, system grid, and World. If headless is false, this launches the
+   * window and starts listening for the server on the event dispatch thread. Otherwise, the Canvas
+   * is created without a window and the server is watched for immediately; it's up to the caller to
+   * render frames. Headless instances must be created on the event dispatch thread.
+   */
+  ArtemisDisplay(final Configuration config, boolean headless) {
+    this(config, headless, true);
+  }
+
+  /**
+   * As above, except that a headless instance only connects to the server if connect is true.
+   */
+  private ArtemisDisplay(final Configuration config, boolean headless, boolean connect) {
     this.config = config;
+    warmup = Warmup.start(config);
+    renderStats = new RenderStats(config.getStatsCsvFile());
+
+    if (config.getTargetFps() != 0) {
+      governor = new QualityGovernor(config);
+    }
+
     grid = new Grid(config.getShipIndex(), config.getContext());
+    systemHealth = new SystemHealthTracker(grid);
     world.addListener(this);
 
+    if (config.getJfrFile() != null) {
+      startFlightRecording(config.getJfrFile());
+    }
+
+    if (config.getMetricsPort() != 0) {
+      startMetricsServer(config.getMetricsPort());
+    }
+
+    if (headless) {
+      canvas = new Canvas(this);
+
+      if (connect) {
+        watchForServer();
+      }
+
+      return;
+    }
+
+    StartupTimer.mark("Initialize");
+
     // Show the display
     SwingUtilities.invokeLater(() -> {
       frame = new CanvasFrame(ArtemisDisplay.this);
+      canvas = frame.getCanvas();
       frame.setVisible(true);
+      StartupTimer.mark("Open window");
       watchForServer();
     });
   }
@@ -130,10 +213,24 @@ public class ArtemisDisplay implements Connector.Listener, WorldListener {
       ready = false;
       iface.addListener(world);
       iface.addListener(grid);
+      iface.addListener(systemHealth);
       iface.addListener(this);
 
-      if (frame != null) {
-        frame.attach(iface);
+      if (flightRecorderListener != null) {
+        iface.addListener(flightRecorderListener);
+      }
+
+      if (packetCounter != null) {
+        iface.addListener(packetCounter);
+      }
+
+      if (canvas != null) {
+        canvas.attach(iface);
+      }
+
+      if (config.getReplayStepper() != null) {
+        // Must be last, so it knows when every other listener has seen a packet
+        iface.addListener(config.getReplayStepper());
       }
 
       if (!iface.isConnected()) {
@@ -174,6 +271,42 @@ public class ArtemisDisplay implements Connector.Listener, WorldListener {
     iface.send(new ReadyPacket());
   }
 
+  /**
+   * Notes the arrival time of the oldest packet that hasn't been rendered yet.
+   */
+  @Listener
+  public void onPacket(ArtemisPacket pkt) {
+    unrenderedPacketTime.compareAndSet(0, System.nanoTime());
+  }
+
+  /**
+   * Returns the number of nanoseconds between the arrival of the oldest packet received since the
+   * last invocation and the given System.nanoTime() value, then starts tracking packets anew. This
+   * measures the latency from a packet's arrival to the end of the frame that shows its effects.
+   * Returns -1 if no packets have arrived since the last invocation.
+   */
+  long takePacketLatency(long now) {
+    long time = unrenderedPacketTime.getAndSet(0);
+    return time != 0 ? now - time : -1;
+  }
+
+  /**
+   * Returns the current time in milliseconds, for animations and other effects that change over
+   * time. This is System.currentTimeMillis() unless HeadlessRenderer has set a frame time, in which
+   * case that time is returned instead so that the frame is the same on every run.
+   */
+  public long currentTimeMillis() {
+    long time = frameTime;
+    return time != 0 ? time : System.currentTimeMillis();
+  }
+
+  /**
+   * Sets the time returned by currentTimeMillis(), or 0 to use the system clock.
+   */
+  void setFrameTime(long frameTime) {
+    this.frameTime = frameTime;
+  }
+
   @Override
   public void onCreate(ArtemisObject obj) {
     // don't care
@@ -185,7 +318,7 @@ public class ArtemisDisplay implements Connector.Listener, WorldListener {
   @Override
   public void onPlayerSpawn(ArtemisPlayer player) {
     if (player.getShipIndex() == config.getShipIndex()) {
-      frame.onPlayerSpawn(player);
+      canvas.onPlayerSpawn(player);
     }
   }
 
@@ -197,7 +330,7 @@ public class ArtemisDisplay implements Connector.Listener, WorldListener {
     ArtemisPlayer player = world.getPlayer(config.getShipIndex());
 
     if (player != null && player.getId() == update.getId()) {
-      frame.onPlayerUpdate(player);
+      canvas.onPlayerUpdate(player);
     }
   }
 
@@ -211,7 +344,7 @@ public class ArtemisDisplay implements Connector.Listener, WorldListener {
       ArtemisPlayer player = (ArtemisPlayer) obj;
 
       if (player.getShipIndex() == config.getShipIndex()) {
-        frame.onPlayerDelete(player);
+        canvas.onPlayerDelete(player);
       }
     }
   }
@@ -246,15 +379,44 @@ public class ArtemisDisplay implements Connector.Listener, WorldListener {
    * Continually attempt to connect to the server until it appears.
    */
   private void watchForServer() {
-    connectorThread = new Thread(new Connector(config.getHost(), this));
+    connectorThread = new Thread(config.buildConnector(this));
     connectorThread.setDaemon(true);
     connectorThread.start();
   }
 
+  /**
+   * Starts a Java Flight Recorder recording to the given file and begins reporting World changes to
+   * it. Failure to start recording is reported but doesn't stop the display from running.
+   */
+  private void startFlightRecording(File file) {
+    try {
+      FlightRecorder.start(file);
+      flightRecorderListener = new FlightRecorderListener();
+      world.addListener(flightRecorderListener);
+    } catch (IOException ex) {
+      ex.printStackTrace();
+    }
+  }
+
+  /**
+   * Starts serving metrics on the given loopback port. As with flight recording, a failure is
+   * reported without stopping the display.
+   */
+  private void startMetricsServer(int port) {
+    try {
+      packetCounter = new PacketCounter();
+      metricsServer = new MetricsServer(renderStats, packetCounter, world);
+      metricsServer.start(port);
+    } catch (IOException ex) {
+      ex.printStackTrace();
+      metricsServer = null;
+    }
+  }
+
   /**
    * Make sure that all asynchronous processes are stopped.
    */
-  private void shutdown() {
+  void shutdown() {
     if (connectorThread != null && connectorThread.isAlive()) {
       connectorThread.interrupt();
     }
@@ -266,6 +428,24 @@ public class ArtemisDisplay implements Connector.Listener, WorldListener {
     if (frame != null && frame.isActive()) {
       frame.dispose();
     }
+
+    if (canvas != null) {
+      canvas.stop();
+    }
+
+    if (metricsServer != null) {
+      metricsServer.stop();
+    }
+
+    renderStats.close();
+    FlightRecorder.stop();
+  }
+
+  /**
+   * Creates a headless ArtemisDisplay which never connects to a server, for BenchmarkHooks.
+   */
+  static ArtemisDisplay createOffline(Configuration config) {
+    return new ArtemisDisplay(config, true, false);
   }
 
   /**
@@ -275,6 +455,42 @@ public class ArtemisDisplay implements Connector.Listener, WorldListener {
     return config;
   }
 
+  /**
+   * Returns the Canvas on which the Displays are rendered.
+   */
+  Canvas getCanvas() {
+    return canvas;
+  }
+
+  /**
+   * Returns the Warmup that's loading fonts and vessel data in the background.
+   */
+  Warmup getWarmup() {
+    return warmup;
+  }
+
+  /**
+   * Returns whether the given RenderOption should be used right now. This is the configured value,
+   * unless the QualityGovernor has turned the option off to keep up the frame rate.
+   */
+  public boolean getRenderOption(Configuration.RenderOption option) {
+    return config.getRenderOption(option) && (governor == null || !governor.isSuppressed(option));
+  }
+
+  /**
+   * Returns the QualityGovernor, or null if there is no target frame rate.
+   */
+  QualityGovernor getGovernor() {
+    return governor;
+  }
+
+  /**
+   * Returns the render time statistics.
+   */
+  public RenderStats getRenderStats() {
+    return renderStats;
+  }
+
   /**
    * Returns the World object.
    */
@@ -288,4 +504,11 @@ public class ArtemisDisplay implements Connector.Listener, WorldListener {
   public Grid getGrid() {
     return grid;
   }
+
+  /**
+   * Returns the SystemHealthTracker for the Grid.
+   */
+  public SystemHealthTracker getSystemHealth() {
+    return systemHealth;
+  }
 }
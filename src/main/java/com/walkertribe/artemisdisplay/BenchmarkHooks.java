@@ -0,0 +1,42 @@
+package com.walkertribe.artemisdisplay;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
+import com.walkertribe.ian.world.ArtemisPlayer;
+
+/**
+ * Entry points for the benchmarks module, which renders parts of the application in isolation. The
+ * application itself never calls these; they exist so that the rest of the package can stay
+ * package-private.
+ * @author rjwut
+ */
+public final class BenchmarkHooks {
+  private BenchmarkHooks() {
+    // prevent instantiation
+  }
+
+  /**
+   * Creates a headless ArtemisDisplay in a window mode that needs no screen, which never connects
+   * to a server.
+   */
+  public static ArtemisDisplay createApp(Configuration config) {
+    config.setWindowMode(WindowMode.WINDOWED);
+    return ArtemisDisplay.createOffline(config);
+  }
+
+  /**
+   * Notifies the application's Canvas that the given player ship has spawned, so that effects which
+   * only apply while the ship is alive are rendered.
+   */
+  public static void spawn(ArtemisDisplay app, ArtemisPlayer player) {
+    app.getCanvas().onPlayerSpawn(player);
+  }
+
+  /**
+   * Renders the Canvas impact effect at the given strength.
+   */
+  public static void renderImpact(ArtemisDisplay app, Graphics2D g, Rectangle bounds, float strength) {
+    app.getCanvas().renderImpact(g, bounds, strength);
+  }
+}
@@ -1,6 +1,8 @@
 package com.walkertribe.artemisdisplay;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Font;
 import java.awt.FontFormatException;
 import java.awt.FontMetrics;
@@ -13,8 +15,11 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import javax.swing.JComponent;
 import javax.swing.Timer;
@@ -22,6 +27,11 @@ import javax.swing.Timer;
 import com.walkertribe.artemisdisplay.Configuration.RenderOption;
 import com.walkertribe.artemisdisplay.display.Display;
 import com.walkertribe.artemisdisplay.i18n.LocaleData;
+import com.walkertribe.artemisdisplay.metrics.FlightRecorder;
+import com.walkertribe.artemisdisplay.metrics.RenderStats;
+import com.walkertribe.artemisdisplay.metrics.RenderTimer;
+import com.walkertribe.artemisdisplay.metrics.StartupTimer;
+import com.walkertribe.artemisdisplay.render.OffscreenSurface;
 import com.walkertribe.ian.iface.ArtemisNetworkInterface;
 import com.walkertribe.ian.iface.ConnectionSuccessEvent;
 import com.walkertribe.ian.iface.DisconnectEvent;
@@ -39,7 +49,8 @@ import com.walkertribe.ian.world.ArtemisPlayer;
  * [ship name] is the name of the selected ship, if known, or "Ship [index + 1]" if not.
  * 
  * This class also handles interface screws when the ship is impacted, and showing a "Paused"
- * overlay when the simulation is paused.
+ * overlay when the simulation is paused. It can also show an overlay with the frame rate and the
+ * render times of the slowest Displays.
  * 
  * @author rjwut
  */
@@ -48,12 +59,16 @@ public class Canvas extends JComponent {
 
   private static final Color SCRIM_COLOR = new Color(0.0f, 0.0f, 0.0f, 0.75f);
   private static final long PULSE_INTERVAL = 2000;
+  private static final int PULSE_PHASES = 64;
+  private static final AlphaComposite[] MESSAGE_PULSE = new AlphaComposite[PULSE_PHASES];
+  private static final int DEFAULT_FRAME_INTERVAL_MS = 50;
   private static final long IMPACT_FADEOUT_MS = 1000;
   private static final float SHAKE_MAGNITUDE = 0.03f;
   private static final float MAX_IMPACT_STRENGTH = 0.3f;
   private static final int STATIC_GRANULARITY = 2;
   private static final long JUMP_EFFECT_DURATION_MS = 8000;
   private static final String MONOSPACE_FONT_FILE = "/DroidSansMono.ttf";
+  private static final int STATS_OVERLAY_DISPLAYS = 5;
 
   static {
     try {
@@ -62,6 +77,11 @@ public class Canvas extends JComponent {
     } catch (FontFormatException | IOException ex) {
       throw new RuntimeException(ex);
     }
+
+    for (int i = 0; i < PULSE_PHASES; i++) {
+      MESSAGE_PULSE[i] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER,
+          pulseAlpha((float) i / PULSE_PHASES, 0.5f));
+    }
   }
 
   private static final long serialVersionUID = -3218529373545600263L;
@@ -75,12 +95,9 @@ public class Canvas extends JComponent {
   }
 
   /**
-   * Given a base Color (presumed to be full opacity), returns a new Color with the alpha channel
-   * set to a value appropriate for the current time in a "pulsing" animation. Over time, the
-   * resulting Colors will pulse between minAlpha and full opacity.
+   * Returns the pulse alpha at the given fraction (0 to 1) of the way through the interval.
    */
-  public static Color pulseColor(Color color, long intervalMs, float minAlpha) {
-    float perc = (float) (System.currentTimeMillis() % intervalMs) / intervalMs;
+  private static float pulseAlpha(float perc, float minAlpha) {
     float alphaRange = 1 - minAlpha;
     float alpha;
 
@@ -90,18 +107,24 @@ public class Canvas extends JComponent {
       alpha = (1 - (perc * 2 - 1)) * alphaRange + minAlpha;
     }
 
-    return new Color(color.getRed() / 255f, color.getGreen() / 255f, color.getBlue() / 255f, alpha);
+    return alpha;
   }
 
+  private ArtemisDisplay app;
   private Configuration config;
   private LocaleData localeData;
+  private RenderStats renderStats;
   private Map<RenderingHints.Key, Object> renderingHints = new HashMap<>();
   private Timer drawTimer;
+  private int frameInterval = DEFAULT_FRAME_INTERVAL_MS;
   private ArtemisNetworkInterface iface;
   private byte shipIndex = 0;
   private int shipId = -1;
   private Display display;
   private TextFitter textFitter;
+  private OffscreenSurface messageSurface = new OffscreenSurface(this::paintMessage, true, true);
+  private String messageText;
+  private Color messageColor;
   private String instructions;
   private boolean connected;
   private CharSequence shipName;
@@ -109,25 +132,21 @@ public class Canvas extends JComponent {
   private boolean paused;
   private long impactEndTime;
   private long jumpEndTime;
+  private boolean showStats;
+  private boolean firstFrameRendered;
+  private Random random = new Random();
 
   /**
    * Creates a new Canvas on which the given Display will be rendered.
    */
   Canvas(ArtemisDisplay app) {
     super();
+    this.app = app;
     config = app.getConfig();
     localeData = LocaleData.get();
+    renderStats = app.getRenderStats();
     textFitter = getTextFitter(false).padding(0.1f);
-
-    if (config.getRenderOption(RenderOption.ANTIALIASING)) {
-      renderingHints.put(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-      renderingHints.put(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-    }
-
-    if (config.getRenderOption(RenderOption.SUBPIXEL_FONT_RENDERING)) {
-      renderingHints.put(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-    }
-
+    updateRenderingHints();
     setOpaque(true);
     display = config.buildDisplay(app);
 
@@ -138,8 +157,14 @@ public class Canvas extends JComponent {
       instructions = localeData.string(instructionsKey);
     }
 
-    // Set up animation timer
-    drawTimer = new Timer(50, new ActionListener() {
+    // Set up animation timer; speed it up if any Display asks for a higher frame rate
+    float maxFrameRate = display.getMaxFrameRate();
+
+    if (maxFrameRate > 0) {
+      frameInterval = Math.min(frameInterval, Math.max((int) (1000 / maxFrameRate), 1));
+    }
+
+    drawTimer = new Timer(frameInterval, new ActionListener() {
       @Override
       public void actionPerformed(ActionEvent e) {
         repaint();
@@ -147,6 +172,21 @@ public class Canvas extends JComponent {
     });
   }
 
+  /**
+   * Returns the number of milliseconds between frames.
+   */
+  int getFrameInterval() {
+    return frameInterval;
+  }
+
+  /**
+   * Seeds the random numbers used for the jump, shake and static effects, so that HeadlessRenderer
+   * can render the same effects on every run.
+   */
+  void setRandomSeed(long seed) {
+    random.setSeed(seed);
+  }
+
   /**
    * Attached an ArtemisNetworkInterface to this Canvas. This will cause it to start responding to
    * events from the server.
@@ -204,7 +244,7 @@ public class Canvas extends JComponent {
    */
   @Listener
   public void onJump(JumpEndPacket pkt) {
-    jumpEndTime = System.currentTimeMillis() + JUMP_EFFECT_DURATION_MS;
+    jumpEndTime = app.currentTimeMillis() + JUMP_EFFECT_DURATION_MS;
   }
 
   /**
@@ -214,7 +254,7 @@ public class Canvas extends JComponent {
    */
   @Listener
   public void onImpact(PlayerShipDamagePacket pkt) {
-    impactEndTime = System.currentTimeMillis() + (long) (pkt.getDuration() * 500);
+    impactEndTime = app.currentTimeMillis() + (long) (pkt.getDuration() * 500);
   }
 
   /**
@@ -263,31 +303,80 @@ public class Canvas extends JComponent {
     }
   }
 
+  /**
+   * Rebuilds the rendering hints from the render options currently in effect.
+   */
+  private void updateRenderingHints() {
+    renderingHints.clear();
+
+    if (app.getRenderOption(RenderOption.ANTIALIASING)) {
+      renderingHints.put(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      renderingHints.put(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    } else {
+      renderingHints.put(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+      renderingHints.put(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+    }
+
+    if (app.getRenderOption(RenderOption.SUBPIXEL_FONT_RENDERING)) {
+      renderingHints.put(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+    } else {
+      renderingHints.put(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+    }
+
+    messageSurface.invalidate();
+  }
+
+  /**
+   * Shows or hides the render statistics overlay.
+   */
+  void toggleStats() {
+    showStats = !showStats;
+  }
+
   @Override
   public void paint(Graphics g) {
-    final Graphics2D g2d = (Graphics2D) g;
+    render((Graphics2D) g, getBounds());
+
+    if (!drawTimer.isRunning()) {
+      drawTimer.start();
+    }
+  }
+
+  /**
+   * Renders a single frame into the given bounds. Unlike paint(), this doesn't start the draw
+   * Timer, so it can be used to render frames to an off-screen image.
+   */
+  void render(Graphics2D g2d, Rectangle bounds) {
+    Object frameEvent = FlightRecorder.beginFrame();
+    long start = System.nanoTime();
 
     // Clear the screen
     g2d.setRenderingHints(renderingHints);
     g2d.setColor(Color.BLACK);
-    final Rectangle bounds = this.getBounds();
     g2d.fill(bounds);
 
     String msgText = null;
     Color msgColor = null;
 
     if (!connected) { // Show "Waiting for server" message
-      msgText = localeData.string("canvas.waiting", config.getHost());
+      msgText = localeData.string("canvas.waiting", config.getSourceName());
       msgColor = Color.RED;
+      Warmup warmup = app.getWarmup();
+
+      if (warmup != null && !warmup.isDone()) {
+        // Round down, so 100% is never shown before loading has finished
+        float progress = (int) (warmup.getProgress() * 100) / 100f;
+        msgText += "\n" + localeData.string("canvas.loading", localeData.formatPercent(progress));
+      }
     } else if (shipId != -1) { // Simulation is running
       if (alive) {
         if (!isScreenBlank()) {
           // Shipshake
-          long impactMs = impactEndTime - System.currentTimeMillis();
+          long impactMs = impactEndTime - app.currentTimeMillis();
           float impactStrength = Math.min((float) impactMs / IMPACT_FADEOUT_MS, 1);
           int shakeX = 0, shakeY = 0;
 
-          if (impactStrength > 0 && config.getRenderOption(Configuration.RenderOption.IMPACT_SHAKE)) {
+          if (impactStrength > 0 && app.getRenderOption(RenderOption.IMPACT_SHAKE)) {
             float maxMagnitude = (float) Math.min(bounds.getWidth(), bounds.getHeight()) * SHAKE_MAGNITUDE;
             shakeX = computeShake(maxMagnitude, impactStrength);
             shakeY = computeShake(maxMagnitude, impactStrength);
@@ -300,7 +389,7 @@ public class Canvas extends JComponent {
 
           // Other interface screws on impact
           if (impactStrength > 0) {
-            renderImpact(g2d, impactStrength * MAX_IMPACT_STRENGTH);
+            renderImpact(g2d, bounds, impactStrength * MAX_IMPACT_STRENGTH);
           }
         }
 
@@ -313,7 +402,7 @@ public class Canvas extends JComponent {
         }
       } else {
         // Player ship was destroyed; fill the screen with static (if enabled)
-        renderImpact(g2d, MAX_IMPACT_STRENGTH);
+        renderImpact(g2d, bounds, MAX_IMPACT_STRENGTH);
       }
     } else { // Show "[ship name] standing by" message
       String shipPlaceholder = shipName != null ? shipName.toString() : localeData.string("canvas.unknown_ship");
@@ -323,8 +412,7 @@ public class Canvas extends JComponent {
 
     // If we are displaying a message, render it here.
     if (msgText != null) {
-      g2d.setColor(pulseColor(msgColor, PULSE_INTERVAL, 0.5f));
-      textFitter.render(g2d, bounds, msgText);
+      renderMessage(g2d, bounds, msgText, msgColor);
 
       if (shipId == -1 && instructions != null) {
         Font font = LocaleData.get().getFont((float) bounds.getWidth() / 60);
@@ -338,17 +426,136 @@ public class Canvas extends JComponent {
       }
     }
 
-    if (!drawTimer.isRunning()) {
-      drawTimer.start();
+    renderStats.getFrameTimer().record(System.nanoTime() - start);
+    FlightRecorder.endFrame(frameEvent);
+
+    if (renderStats.update(System.currentTimeMillis())) {
+      QualityGovernor governor = app.getGovernor();
+
+      if (governor != null && governor.evaluate(renderStats.getFrameSnapshot())) {
+        updateRenderingHints();
+      }
+    }
+
+    if (showStats) {
+      renderStats(g2d, bounds);
+    }
+
+    if (!firstFrameRendered) {
+      onFirstFrame();
+    }
+  }
+
+  /**
+   * Prints the startup report and exits after the first frame, if requested.
+   */
+  private void onFirstFrame() {
+    firstFrameRendered = true;
+    StartupTimer.mark("First frame");
+
+    if (config.isStartupReport()) {
+      StartupTimer.report(System.out);
+    }
+
+    if (config.isExitAfterFirstFrame()) {
+      System.exit(0);
+    }
+  }
+
+  /**
+   * Renders the pulsing status message. Fitting the text is expensive, so the message is rendered
+   * once into an OffscreenSurface, which is then drawn with the pulse alpha each frame, using a
+   * composite precomputed for each of PULSE_PHASES steps. The surface is repainted when the text,
+   * color, or size changes.
+   */
+  private void renderMessage(Graphics2D g, Rectangle bounds, String text, Color color) {
+    if (!text.equals(messageText) || !color.equals(messageColor)) {
+      messageText = text;
+      messageColor = color;
+      messageSurface.invalidate();
+    }
+
+    messageSurface.setSize(bounds.width, bounds.height);
+    int phase = (int) (app.currentTimeMillis() % PULSE_INTERVAL * PULSE_PHASES / PULSE_INTERVAL);
+    Composite composite = g.getComposite();
+    g.setComposite(MESSAGE_PULSE[phase]);
+    messageSurface.draw(g, bounds.x, bounds.y);
+    g.setComposite(composite);
+  }
+
+  /**
+   * Paints the current status message at full opacity into the message surface.
+   */
+  private void paintMessage(Graphics2D g, int width, int height) {
+    g.setRenderingHints(renderingHints);
+    g.setColor(messageColor);
+    textFitter.render(g, new Rectangle(0, 0, width, height), messageText);
+  }
+
+  /**
+   * Renders the overlay showing the frame rate, the frame time, and the render times of the slowest
+   * Displays over the last interval. Layouts are left out of the list, since their times include
+   * those of their children.
+   */
+  private void renderStats(Graphics2D g, Rectangle bounds) {
+    List<String> lines = new ArrayList<>();
+    RenderTimer.Snapshot frame = renderStats.getFrameSnapshot();
+    lines.add(String.format("%5.1f fps  frame p50 %s  p95 %s  max %s", renderStats.getFps(),
+        formatUs(frame.getP50()), formatUs(frame.getP95()), formatUs(frame.getMax())));
+    QualityGovernor governor = app.getGovernor();
+
+    if (governor != null && !governor.getSuppressed().isEmpty()) {
+      lines.add("reduced quality: " + governor.getSuppressed());
+    }
+
+    int displayLimit = lines.size() + STATS_OVERLAY_DISPLAYS;
+
+    for (RenderTimer.Snapshot snapshot : renderStats.getSnapshots()) {
+      if (lines.size() == displayLimit) {
+        break;
+      }
+
+      if (!snapshot.isLayout()) {
+        lines.add(String.format("%-20.20s p50 %s  p95 %s  p99 %s", snapshot.getName(),
+            formatUs(snapshot.getP50()), formatUs(snapshot.getP95()), formatUs(snapshot.getP99())));
+      }
+    }
+
+    Font font = MONOSPACE_FONT.deriveFont(Math.max((float) bounds.getHeight() / 70, 10));
+    FontMetrics fontMetrics = g.getFontMetrics(font);
+    int lineHeight = fontMetrics.getHeight();
+    int width = 0;
+
+    for (String line : lines) {
+      width = Math.max(width, fontMetrics.stringWidth(line));
+    }
+
+    int pad = lineHeight / 2;
+    g.setColor(SCRIM_COLOR);
+    g.fillRect(bounds.x, bounds.y, width + pad * 2, lineHeight * lines.size() + pad * 2);
+    g.setFont(font);
+    g.setColor(Color.GREEN);
+    int y = bounds.y + pad + fontMetrics.getAscent();
+
+    for (String line : lines) {
+      g.drawString(line, bounds.x + pad, y);
+      y += lineHeight;
     }
   }
 
+  /**
+   * Formats a time in microseconds as milliseconds.
+   */
+  private static String formatUs(long us) {
+    return String.format("%6.2fms", us / 1000f);
+  }
+
   /**
    * Returns true if the screen should be blank in this frame (due to a jump). This is only invoked
    * while the player is alive.
    */
   private boolean isScreenBlank() {
-    long diff = jumpEndTime - System.currentTimeMillis();
+    long diff = jumpEndTime - app.currentTimeMillis();
 
     if (diff < 0) {
       return false;
@@ -358,7 +565,7 @@ public class Canvas extends JComponent {
       return true;
     }
 
-    return Math.random() < diff / (float) JUMP_EFFECT_DURATION_MS;
+    return random.nextDouble() < diff / (float) JUMP_EFFECT_DURATION_MS;
   }
 
   /**
@@ -377,24 +584,23 @@ public class Canvas extends JComponent {
    * Returns a random number indicating how much the screen should be offset this frame.
    */
   private int computeShake(float maxMagnitude, float impactStrength) {
-    return (int) ((Math.random() * 2 - 1) * maxMagnitude * impactStrength);
+    return (int) ((random.nextDouble() * 2 - 1) * maxMagnitude * impactStrength);
   }
 
   /**
    * Renders an impact effect on the screen.
    */
-  private void renderImpact(Graphics2D g, float strength) {
-    if (alive && config.getRenderOption(Configuration.RenderOption.IMPACT_DIM)) {
+  void renderImpact(Graphics2D g, Rectangle bounds, float strength) {
+    if (alive && app.getRenderOption(RenderOption.IMPACT_DIM)) {
       g.setColor(new Color(0f, 0f, 0f, strength));
-      final Rectangle bounds = this.getBounds();
       g.fill(bounds);
     }
 
-    if (config.getRenderOption(Configuration.RenderOption.IMPACT_STATIC)) {
-      for (int x = 0; x < getWidth(); x += STATIC_GRANULARITY){
-        for (int y = 0; y < getHeight(); y += STATIC_GRANULARITY){
+    if (app.getRenderOption(RenderOption.IMPACT_STATIC)) {
+      for (int x = 0; x < bounds.width; x += STATIC_GRANULARITY){
+        for (int y = 0; y < bounds.height; y += STATIC_GRANULARITY){
           int threshold = (int) (128f * strength);
-          int value = (int) (Math.random() * 256);
+          int value = (int) (random.nextDouble() * 256);
 
           if (value < threshold || (255 - value) < threshold) {
             g.setColor(new Color(value, value, value));
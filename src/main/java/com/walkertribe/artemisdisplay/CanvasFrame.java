@@ -12,9 +12,6 @@ import java.net.URL;
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
 
-import com.walkertribe.ian.iface.ArtemisNetworkInterface;
-import com.walkertribe.ian.world.ArtemisPlayer;
-
 /**
  * A JFrame subclass which contains only a Canvas to draw on.
  * @author rjwut
@@ -61,6 +58,10 @@ public class CanvasFrame extends JFrame {
           }
         }
 
+        if (e.getKeyCode() == 114) { // F3: toggle render statistics
+          canvas.toggleStats();
+        }
+
         if (deviceIndex != -1) {
           // We're running full screen, so we need keys to switch monitors
           if (e.getKeyCode() == 37 && e.isShiftDown()) { // SHIFT-LEFT
@@ -82,31 +83,10 @@ public class CanvasFrame extends JFrame {
   }
 
   /**
-   * We've connected to the server. Delegate this event to the Canvas.
-   */
-  public void attach(ArtemisNetworkInterface iface) {
-    canvas.attach(iface);
-  }
-
-  /**
-   * Forwards player creation events to the Canvas.
-   */
-  public void onPlayerSpawn(ArtemisPlayer player) {
-    canvas.onPlayerSpawn(player);
-  }
-
-  /**
-   * Forwards the player update to the Canvas.
-   */
-  public void onPlayerUpdate(ArtemisPlayer player) {
-    canvas.onPlayerUpdate(player);
-  }
-
-  /**
-   * Forwards player deletion events to the Canvas.
+   * Returns the Canvas contained in this frame.
    */
-  public void onPlayerDelete(ArtemisPlayer player) {
-    canvas.onPlayerDelete(player);
+  Canvas getCanvas() {
+    return canvas;
   }
 
   /**
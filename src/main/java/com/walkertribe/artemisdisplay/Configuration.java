@@ -1,5 +1,6 @@
 package com.walkertribe.artemisdisplay;
 
+import java.awt.Dimension;
 import java.awt.GraphicsEnvironment;
 import java.io.File;
 import java.io.IOException;
@@ -17,6 +18,10 @@ import org.json.JSONException;
 import com.walkertribe.artemisdisplay.display.Display;
 import com.walkertribe.artemisdisplay.display.layout.LayoutParser;
 import com.walkertribe.artemisdisplay.i18n.LocaleData;
+import com.walkertribe.artemisdisplay.metrics.FlightRecorder;
+import com.walkertribe.artemisdisplay.replay.RecordingConnector;
+import com.walkertribe.artemisdisplay.replay.ReplayConnector;
+import com.walkertribe.artemisdisplay.replay.ReplayStepper;
 import com.walkertribe.ian.Context;
 import com.walkertribe.ian.DefaultContext;
 import com.walkertribe.ian.FilePathResolver;
@@ -33,6 +38,7 @@ public class Configuration {
   public static enum Action {
     RUN,            // run the display
     EXPORT_STRINGS, // export the locale strings file
+    HEADLESS,       // render frames to image files without a window
     HELP,           // display command line help
   }
 
@@ -45,7 +51,8 @@ public class Configuration {
     DRAW_SILHOUETTES,
     IMPACT_SHAKE,
     IMPACT_DIM,
-    IMPACT_STATIC
+    IMPACT_STATIC,
+    INT_RASTER
   }
 
   public static void printUsage() {
@@ -88,24 +95,43 @@ public class Configuration {
       String enumName = args.get(0).toUpperCase().replace('-', '_');
       config.setDisplayType(Display.Type.valueOf(enumName));
     });
+    addFlag("exit-after-first-frame", null, "Exit as soon as the first frame is drawn (for AppCDS training runs)", (config, args) -> {
+      config.setExitAfterFirstFrame(true);
+    });
     addFlag("export-strings", null, "Export localization strings file", (config, args) -> {
       config.setAction(Action.EXPORT_STRINGS);
     });
     addFlag("force-dialog", null, "Always show configuration dialog", (config, args) -> {
       config.setForceDialog(true);
     });
+    addFlag("frames", "count", "Number of frames to render in headless mode", (config, args) -> {
+      config.setFrameCount(Integer.parseInt(args.get(0)));
+    });
+    addFlag("headless", "directory", "Render frames to PNG files in the given directory without a window", (config, args) -> {
+      config.setAction(Action.HEADLESS);
+      config.setHeadlessOutputDir(new File(args.get(0)));
+    });
     addFlag("help", null, "Print this message", (config, args) -> {
       config.setAction(Action.HELP);
     });
     addFlag("host", "nameOrAddress", "Address or host name of Artemis server", (config, args) -> {
       config.setHost(args.get(0));
     });
+    addFlag("int-raster", null, "Draw maps with a simple software rasterizer instead of Java2D", (config, args) -> {
+      config.setRenderOption(RenderOption.INT_RASTER, true);
+    });
+    addFlag("jfr", "file", "Record a Java Flight Recorder file of packets, World changes and rendering", (config, args) -> {
+      config.setJfrFile(new File(args.get(0)));
+    });
     addFlag("layout", "jsonFile", "The layout file to use (if not using --display)", (config, args) -> {
       config.setLayoutFile(new File(args.get(0)));
     });
     addFlag("locale", "tag", "Display locale", (config, args) -> {
       config.setLocale(args.get(0));
     });
+    addFlag("metrics-port", "port", "Serve render and network metrics over HTTP on this localhost port", (config, args) -> {
+      config.setMetricsPort(Integer.parseInt(args.get(0)));
+    });
     addFlag("mode", "mode", "Window mode (fullscreen, windowed-fullscreen, windowed)", (config, args) -> {
       String enumName = args.get(0).toUpperCase().replace('-', '_');
       config.setWindowMode(WindowMode.valueOf(enumName));
@@ -119,15 +145,42 @@ public class Configuration {
     addFlag("no-silhouettes", null, "Always render arrows instead of ship silhouettes", (config, args) -> {
       config.setRenderOption(RenderOption.DRAW_SILHOUETTES, false);
     });
+    addFlag("parallel-layout", null, "Render the displays in a layout in parallel on all processors", (config, args) -> {
+      config.setParallelLayout(true);
+    });
+    addFlag("realtime", null, "In headless mode, render on a wall clock schedule instead of stepping --replay with the frames", (config, args) -> {
+      config.setRealtime(true);
+    });
+    addFlag("record", "file", "Record the packets received from the server to the given file", (config, args) -> {
+      config.setRecordFile(new File(args.get(0)));
+    });
+    addFlag("replay", "file", "Play back a recorded packet file instead of connecting to a server", (config, args) -> {
+      config.setReplayFile(new File(args.get(0)));
+    });
+    addFlag("replay-speed", "factor", "Playback speed for --replay (1 = real time, 0 = as fast as possible)", (config, args) -> {
+      config.setReplaySpeed(Float.parseFloat(args.get(0)));
+    });
+    addFlag("resolution", "WxH", "Frame size in headless mode (e.g. 1920x1080)", (config, args) -> {
+      config.setResolution(args.get(0));
+    });
     addFlag("ship", "index", "Ship index to display (1 - 8 inclusive)", (config, args) -> {
       config.setShipIndex((byte) (Byte.parseByte(args.get(0)) - 1));
     });
+    addFlag("startup-report", null, "Print how long each phase of startup took once the first frame is drawn", (config, args) -> {
+      config.setStartupReport(true);
+    });
     addFlag("static", null, "Fill display with static on impact", (config, args) -> {
       config.setRenderOption(RenderOption.IMPACT_STATIC, true);
     });
+    addFlag("stats-csv", "file", "Append per-display render time statistics to the given CSV file every second", (config, args) -> {
+      config.setStatsCsvFile(new File(args.get(0)));
+    });
     addFlag("subpixel-font", null, "Enable subpixel font rendering", (config, args) -> {
       config.setRenderOption(RenderOption.SUBPIXEL_FONT_RENDERING, true);
     });
+    addFlag("target-fps", "fps", "Turn off render options as needed to keep frames within this frame rate's budget", (config, args) -> {
+      config.setTargetFps(Float.parseFloat(args.get(0)));
+    });
   }
 
   private Action action = Action.RUN;
@@ -140,7 +193,23 @@ public class Configuration {
   private File layoutFile;
   private Set<RenderOption> renderOptions = new HashSet<>();
   private boolean forceDialog;
+  private File headlessOutputDir;
+  private Dimension resolution = new Dimension(1920, 1080);
+  private int frameCount = 200;
+  private File recordFile;
+  private File replayFile;
+  private float replaySpeed = 1;
+  private boolean realtime;
+  private ReplayStepper replayStepper;
+  private File statsCsvFile;
+  private File jfrFile;
+  private int metricsPort;
+  private float targetFps;
+  private boolean parallelLayout;
+  private boolean startupReport;
+  private boolean exitAfterFirstFrame;
   private Context ctx;
+  private HullTable hullTable;
 
   /**
    * Creates a new Configuration object. The DRAW_SILHOUETTES and IMPACT_SHAKE options are turned on
@@ -345,6 +414,273 @@ public class Configuration {
     this.forceDialog = forceDialog;
   }
 
+  /**
+   * The directory where frames are written in headless mode.
+   */
+  public File getHeadlessOutputDir() {
+    return headlessOutputDir;
+  }
+
+  public void setHeadlessOutputDir(File headlessOutputDir) {
+    if (headlessOutputDir.exists() && !headlessOutputDir.isDirectory()) {
+      throw new IllegalArgumentException("Not a directory: " + headlessOutputDir);
+    }
+
+    this.headlessOutputDir = headlessOutputDir;
+  }
+
+  /**
+   * The size of the frames rendered in headless mode.
+   */
+  public Dimension getResolution() {
+    return resolution;
+  }
+
+  public void setResolution(Dimension resolution) {
+    if (resolution.width < 1 || resolution.height < 1) {
+      throw new IllegalArgumentException("Invalid resolution: " + resolution.width + "x" + resolution.height);
+    }
+
+    this.resolution = resolution;
+  }
+
+  /**
+   * Sets the resolution from a string in the form WIDTHxHEIGHT.
+   */
+  public void setResolution(String resolution) {
+    int xPos = resolution.toLowerCase().indexOf('x');
+
+    if (xPos == -1) {
+      throw new IllegalArgumentException("Expected WIDTHxHEIGHT; got " + resolution);
+    }
+
+    int width = Integer.parseInt(resolution.substring(0, xPos).trim());
+    int height = Integer.parseInt(resolution.substring(xPos + 1).trim());
+    setResolution(new Dimension(width, height));
+  }
+
+  /**
+   * The number of frames to render in headless mode.
+   */
+  public int getFrameCount() {
+    return frameCount;
+  }
+
+  public void setFrameCount(int frameCount) {
+    if (frameCount < 1) {
+      throw new IllegalArgumentException("Frame count must be at least 1");
+    }
+
+    this.frameCount = frameCount;
+  }
+
+  /**
+   * The file to which received packets are recorded, or null if recording is off.
+   */
+  public File getRecordFile() {
+    return recordFile;
+  }
+
+  public void setRecordFile(File recordFile) {
+    if (recordFile != null && recordFile.isDirectory()) {
+      throw new IllegalArgumentException("Not a file: " + recordFile);
+    }
+
+    this.recordFile = recordFile;
+  }
+
+  /**
+   * The recorded packet file to play back instead of connecting to a server, or null to connect to
+   * the host normally.
+   */
+  public File getReplayFile() {
+    return replayFile;
+  }
+
+  public void setReplayFile(File replayFile) {
+    if (replayFile != null) {
+      if (!replayFile.isFile()) {
+        throw new IllegalArgumentException("File not found: " + replayFile);
+      }
+
+      if (!replayFile.canRead()) {
+        throw new IllegalArgumentException("Can't read file: " + replayFile);
+      }
+    }
+
+    this.replayFile = replayFile;
+  }
+
+  /**
+   * The speed factor for playing back a recorded packet file. A value of 0 means to play it back as
+   * fast as possible.
+   */
+  public float getReplaySpeed() {
+    return replaySpeed;
+  }
+
+  public void setReplaySpeed(float replaySpeed) {
+    if (replaySpeed < 0) {
+      throw new IllegalArgumentException("Replay speed cannot be negative");
+    }
+
+    this.replaySpeed = replaySpeed;
+  }
+
+  /**
+   * Returns true if headless mode should render frames on a wall clock schedule while the packets
+   * arrive in real time, as the Canvas does. This is what frame timings and latencies should be
+   * measured with, but the frames aren't reproducible. Otherwise, a --replay is stepped along with
+   * the frames so that the same frames are rendered on every run.
+   */
+  public boolean isRealtime() {
+    return realtime;
+  }
+
+  public void setRealtime(boolean realtime) {
+    this.realtime = realtime;
+  }
+
+  /**
+   * The ReplayStepper that advances playback of the recorded packet file, or null if it should be
+   * played back in real time.
+   */
+  public ReplayStepper getReplayStepper() {
+    return replayStepper;
+  }
+
+  public void setReplayStepper(ReplayStepper replayStepper) {
+    this.replayStepper = replayStepper;
+  }
+
+  /**
+   * The file to which a Java Flight Recorder recording is written, or null if there's no recording.
+   */
+  public File getJfrFile() {
+    return jfrFile;
+  }
+
+  public void setJfrFile(File jfrFile) {
+    if (jfrFile != null) {
+      if (!FlightRecorder.isAvailable()) {
+        throw new IllegalArgumentException("Java Flight Recorder is not available in this Java runtime");
+      }
+
+      if (jfrFile.isDirectory()) {
+        throw new IllegalArgumentException("Not a file: " + jfrFile);
+      }
+    }
+
+    this.jfrFile = jfrFile;
+  }
+
+  /**
+   * The localhost port on which metrics are served, or 0 if the metrics server is off.
+   */
+  public int getMetricsPort() {
+    return metricsPort;
+  }
+
+  public void setMetricsPort(int metricsPort) {
+    if (metricsPort < 0 || metricsPort > 65535) {
+      throw new IllegalArgumentException("Invalid port number: " + metricsPort);
+    }
+
+    this.metricsPort = metricsPort;
+  }
+
+  /**
+   * Whether the displays in a layout are rendered in parallel.
+   */
+  public boolean isParallelLayout() {
+    return parallelLayout;
+  }
+
+  public void setParallelLayout(boolean parallelLayout) {
+    this.parallelLayout = parallelLayout;
+  }
+
+  /**
+   * Whether to print the startup phase timings when the first frame is drawn.
+   */
+  public boolean isStartupReport() {
+    return startupReport;
+  }
+
+  public void setStartupReport(boolean startupReport) {
+    this.startupReport = startupReport;
+  }
+
+  /**
+   * Whether to exit once the first frame is drawn. This lets a training run record the classes
+   * loaded during startup for an AppCDS archive.
+   */
+  public boolean isExitAfterFirstFrame() {
+    return exitAfterFirstFrame;
+  }
+
+  public void setExitAfterFirstFrame(boolean exitAfterFirstFrame) {
+    this.exitAfterFirstFrame = exitAfterFirstFrame;
+  }
+
+  /**
+   * The frame rate the QualityGovernor tries to keep up, or 0 if it's off.
+   */
+  public float getTargetFps() {
+    return targetFps;
+  }
+
+  public void setTargetFps(float targetFps) {
+    if (targetFps < 0) {
+      throw new IllegalArgumentException("Target frame rate cannot be negative");
+    }
+
+    this.targetFps = targetFps;
+  }
+
+  /**
+   * The CSV file to which render time statistics are appended, or null if they aren't logged.
+   */
+  public File getStatsCsvFile() {
+    return statsCsvFile;
+  }
+
+  public void setStatsCsvFile(File statsCsvFile) {
+    if (statsCsvFile != null && statsCsvFile.isDirectory()) {
+      throw new IllegalArgumentException("Not a file: " + statsCsvFile);
+    }
+
+    this.statsCsvFile = statsCsvFile;
+  }
+
+  /**
+   * Returns a description of where the packets are coming from: the host name, or the name of the
+   * file being played back.
+   */
+  public String getSourceName() {
+    return replayFile != null ? replayFile.getName() : host;
+  }
+
+  /**
+   * Builds the Connector which will establish the connection to the server (or the playback of a
+   * recording) and notify the given Listener.
+   */
+  public Connector buildConnector(Connector.Listener listener) {
+    if (replayFile != null && replayStepper != null) {
+      return new ReplayConnector(replayFile, replayStepper, listener);
+    }
+
+    if (replayFile != null) {
+      return new ReplayConnector(replayFile, replaySpeed, listener);
+    }
+
+    if (recordFile != null) {
+      return new RecordingConnector(host, recordFile, listener);
+    }
+
+    return new Connector(host, listener);
+  }
+
   /**
    * Builds the Display object defined by this object.
    */
@@ -441,7 +777,7 @@ public class Configuration {
    * Returns true if we have enough information to launch the display.
    */
   public boolean isReady() {
-    return host != null && (displayType != null || layoutFile != null);
+    return (host != null || replayFile != null) && (displayType != null || layoutFile != null);
   }
 
   /**
@@ -455,11 +791,22 @@ public class Configuration {
       }
 
       ctx = new DefaultContext(new FilePathResolver(artemisInstallPath));
+      hullTable = new HullTable(ctx);
+      hullTable.start();
     }
 
     return ctx;
   }
 
+  /**
+   * Returns the HullTable for the Context, or null if there is no Context. The table is built in
+   * the background, starting when the Context is created.
+   */
+  public HullTable getHullTable() {
+    getContext();
+    return hullTable;
+  }
+
   /**
    * Attempts to locate the Artemis installation directory. If the directory is located, a File
    * object for that directory will be returned; otherwise, this method will return null. Note: This
@@ -1,5 +1,6 @@
 package com.walkertribe.artemisdisplay;
 
+import java.io.IOException;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
 
@@ -13,7 +14,7 @@ import com.walkertribe.ian.world.Artemis;
  * @author rjwut
  */
 public class Connector implements Runnable {
-  private static final int CONNECT_TIMEOUT_MS = 1000;
+  protected static final int CONNECT_TIMEOUT_MS = 1000;
   private static final int SLEEP_INTERVAL_MS = 1000;
 
   /**
@@ -58,7 +59,7 @@ public class Connector implements Runnable {
     while (true) {
       try {
         // Try to connect
-        listener.attach(new ThreadedArtemisNetworkInterface(host, port, CONNECT_TIMEOUT_MS));
+        listener.attach(connect());
         break;
       } catch (SocketTimeoutException | ConnectException ex) {
         // Nobody's there; sleep and try again
@@ -75,4 +76,27 @@ public class Connector implements Runnable {
       }
     }
   }
+
+  /**
+   * Opens a connection to the server. Subclasses may override this to interpose on the stream. A
+   * SocketTimeoutException or ConnectException indicates that there's nobody there yet, and the
+   * attempt will be retried.
+   */
+  protected ArtemisNetworkInterface connect() throws IOException {
+    return new ThreadedArtemisNetworkInterface(host, port, CONNECT_TIMEOUT_MS);
+  }
+
+  /**
+   * Returns the name or address of the host to connect to.
+   */
+  protected String getHost() {
+    return host;
+  }
+
+  /**
+   * Returns the port to connect to.
+   */
+  protected int getPort() {
+    return port;
+  }
 }
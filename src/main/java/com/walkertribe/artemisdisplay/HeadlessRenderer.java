@@ -0,0 +1,161 @@
+package com.walkertribe.artemisdisplay;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import com.walkertribe.artemisdisplay.replay.ReplayStepper;
+
+/**
+ * Runs the display without a window, rendering a fixed number of frames into an off-screen image.
+ * Each frame is written to the output directory as a PNG file, and the time spent rendering each
+ * frame is written to timings.csv in the same directory. This makes it possible to compare
+ * rendering performance between builds on machines with no display attached.
+ *
+ * When playing back a recording, the playback is stepped along with the frames by default: before
+ * each frame, every packet due by that frame's time is delivered and dispatched, and the display's
+ * clock is fixed at that time, so the same frames are rendered on every run. Otherwise (with
+ * --realtime, or when connected to a server), frames are rendered on a wall clock schedule as the
+ * Canvas does, and timings.csv also records the latency from the arrival of the oldest packet
+ * rendered in each frame to the end of the frame.
+ * @author rjwut
+ */
+public class HeadlessRenderer {
+  private static final String TIMINGS_FILE = "timings.csv";
+  private static final long STEPPED_START_TIME_MS = 1000000000000L; // arbitrary, but always the same
+
+  private Configuration config;
+  private File outputDir;
+  private Rectangle bounds;
+  private int frameCount;
+  private ReplayStepper stepper;
+  private ArtemisDisplay app;
+  private long renderNanos;
+  private long latencyNanos;
+
+  /**
+   * Creates a HeadlessRenderer for the given Configuration. Headless rendering always uses the
+   * WINDOWED mode, since there are no screen devices to go full screen on.
+   */
+  HeadlessRenderer(Configuration config) {
+    if (!config.isReady()) {
+      throw new IllegalArgumentException("--headless requires --host or --replay, and either --display or --layout");
+    }
+
+    this.config = config;
+    config.setWindowMode(WindowMode.WINDOWED);
+    outputDir = config.getHeadlessOutputDir();
+    Dimension resolution = config.getResolution();
+    bounds = new Rectangle(0, 0, resolution.width, resolution.height);
+    frameCount = config.getFrameCount();
+
+    if (config.getReplayFile() != null && !config.isRealtime()) {
+      stepper = new ReplayStepper();
+      config.setReplayStepper(stepper);
+    }
+  }
+
+  /**
+   * Connects to the server and renders the configured number of frames, then shuts down and prints
+   * a summary of the frame timings.
+   */
+  void run() throws IOException, InterruptedException, InvocationTargetException {
+    if (!outputDir.exists() && !outputDir.mkdirs()) {
+      throw new IOException("Could not create directory: " + outputDir);
+    }
+
+    SwingUtilities.invokeAndWait(() -> {
+      app = new ArtemisDisplay(config, true);
+    });
+    BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB);
+    long[] timings = new long[frameCount];
+    long frameInterval = app.getCanvas().getFrameInterval();
+    long start = System.currentTimeMillis();
+
+    if (stepper != null) {
+      app.getCanvas().setRandomSeed(0);
+    }
+
+    try (PrintWriter out = new PrintWriter(new FileWriter(new File(outputDir, TIMINGS_FILE)))) {
+      out.println("frame,timestamp_ms,render_us,latency_us");
+
+      for (int i = 0; i < frameCount; i++) {
+        long timestamp;
+
+        if (stepper != null) {
+          timestamp = i * frameInterval;
+          step(timestamp);
+        } else {
+          // Keep to the same schedule as the Canvas, even if writing the last frame ran long
+          long wait = start + i * frameInterval - System.currentTimeMillis();
+
+          if (wait > 0) {
+            Thread.sleep(wait);
+          }
+
+          timestamp = System.currentTimeMillis() - start;
+        }
+
+        SwingUtilities.invokeAndWait(() -> {
+          Graphics2D g = image.createGraphics();
+          long t0 = System.nanoTime();
+          app.getCanvas().render(g, bounds);
+          long t1 = System.nanoTime();
+          renderNanos = t1 - t0;
+          latencyNanos = stepper == null ? app.takePacketLatency(t1) : -1;
+          g.dispose();
+        });
+        timings[i] = renderNanos / 1000;
+        String latency = latencyNanos != -1 ? Long.toString(latencyNanos / 1000) : "";
+        out.println(i + "," + timestamp + "," + timings[i] + "," + latency);
+        ImageIO.write(image, "png", new File(outputDir, String.format("frame-%05d.png", i)));
+      }
+    } finally {
+      SwingUtilities.invokeAndWait(app::shutdown);
+    }
+
+    printSummary(timings);
+  }
+
+  /**
+   * Fixes the display's clock at the given number of milliseconds after the start of the run, then
+   * delivers every packet that was recorded by that time (scaled by the replay speed) and waits for
+   * it to be dispatched.
+   */
+  private void step(long time) throws IOException, InterruptedException {
+    app.setFrameTime(STEPPED_START_TIME_MS + time);
+    float speed = config.getReplaySpeed();
+    stepper.advance(speed > 0 ? (long) (time * speed) : Long.MAX_VALUE);
+  }
+
+  /**
+   * Prints the mean, median, 95th percentile, and maximum render times.
+   */
+  private void printSummary(long[] timings) {
+    long[] sorted = timings.clone();
+    Arrays.sort(sorted);
+    long mean = Arrays.stream(sorted).sum() / sorted.length;
+    System.out.println("Rendered " + sorted.length + " frames at " + bounds.width + "x" + bounds.height +
+        " to " + outputDir);
+    System.out.println("Render time (us): mean " + mean + ", p50 " + percentile(sorted, 0.5) +
+        ", p95 " + percentile(sorted, 0.95) + ", max " + sorted[sorted.length - 1]);
+  }
+
+  /**
+   * Returns the value at the given percentile from a sorted array.
+   */
+  private static long percentile(long[] sorted, double p) {
+    int index = (int) Math.ceil(p * sorted.length) - 1;
+    return sorted[Math.max(index, 0)];
+  }
+}
@@ -0,0 +1,252 @@
+package com.walkertribe.artemisdisplay;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.walkertribe.ian.Context;
+import com.walkertribe.ian.enums.FactionAttribute;
+import com.walkertribe.ian.enums.SpecialAbility;
+import com.walkertribe.ian.model.Model;
+import com.walkertribe.ian.util.BoolState;
+import com.walkertribe.ian.vesseldata.Faction;
+import com.walkertribe.ian.vesseldata.Vessel;
+import com.walkertribe.ian.vesseldata.VesselAttribute;
+import com.walkertribe.ian.vesseldata.VesselData;
+import com.walkertribe.ian.world.ArtemisNpc;
+import com.walkertribe.ian.world.ArtemisObject;
+import com.walkertribe.ian.world.ArtemisShielded;
+
+/**
+ * <p>
+ * A table of everything the displays need to know about each hull ID: the Vessel, its Model, its
+ * Faction's attributes, its torpedo tube count, and for bases, the BaseType. The table is an array
+ * indexed by hull ID, so looking up a hull doesn't go through the vessel data maps. The
+ * Configuration creates one table for its Context and builds it on a background thread, loading
+ * every Model along the way.
+ * </p>
+ * <p>
+ * Lookups made before the table is finished are answered from the Context while holding the
+ * table's lock, which the background thread also takes for each hull. The Hulls built this way are
+ * kept and reused by the background thread, so each hull is only built once, and a caller waits at
+ * most for one hull to be built.
+ * </p>
+ * <p>
+ * IAN's Context isn't thread-safe, and parallel layouts render displays on several threads at
+ * once, so everything the displays ask of the Context goes through this class and holds the same
+ * lock: Models for objects that don't have a hull, and NPC special abilities, as well as hulls.
+ * Display and render code shouldn't call the Context directly.
+ * </p>
+ * @author rjwut
+ */
+public class HullTable {
+  private static final int MAX_HULL_ID = 0xffff;
+
+  private Context ctx;
+  private volatile Hull[] hulls;
+  private volatile int total;
+  private volatile int built;
+  private Map<Integer, Hull> early = new HashMap<>();
+
+  /**
+   * Creates an empty table for the given Context. Call start() to build it.
+   */
+  public HullTable(Context ctx) {
+    this.ctx = ctx;
+  }
+
+  /**
+   * Returns the Hull for the given object, or null if its hull ID isn't known.
+   */
+  public Hull lookup(ArtemisShielded obj) {
+    return get(obj.getHullId());
+  }
+
+  /**
+   * Returns the Hull with the given ID, or null if there is no such hull.
+   */
+  public Hull get(int hullId) {
+    Hull[] array = hulls;
+
+    if (array != null) {
+      return hullId >= 0 && hullId < array.length ? array[hullId] : null;
+    }
+
+    if (hullId < 0) {
+      return null;
+    }
+
+    synchronized (this) {
+      if (hulls != null) {
+        return hullId < hulls.length ? hulls[hullId] : null;
+      }
+
+      if (early.containsKey(hullId)) {
+        return early.get(hullId);
+      }
+
+      Vessel vessel = ctx.getVesselData().getVessel(hullId);
+      Hull hull = vessel != null ? new Hull(vessel) : null;
+      early.put(hullId, hull);
+      return hull;
+    }
+  }
+
+  /**
+   * Returns the Model for the given object: its hull's Model for ships and bases, or the Model the
+   * Context provides for anything else. Returns null if there is none.
+   */
+  public Model getModel(ArtemisObject obj) {
+    if (obj instanceof ArtemisShielded) {
+      Hull hull = lookup((ArtemisShielded) obj);
+      return hull != null ? hull.getModel() : null;
+    }
+
+    synchronized (this) {
+      return obj.getModel(ctx);
+    }
+  }
+
+  /**
+   * Returns the special abilities the given NPC's hull has, or null if they aren't known.
+   */
+  public synchronized Set<SpecialAbility> getSpecialAbilities(ArtemisNpc npc) {
+    return npc.getSpecialAbilities(ctx);
+  }
+
+  /**
+   * Returns whether the given NPC is using the given special ability.
+   */
+  public synchronized BoolState isUsingSpecialAbility(ArtemisNpc npc, SpecialAbility ability) {
+    return npc.isUsingSpecialAbility(ability, ctx);
+  }
+
+  /**
+   * Returns true once the table has been built.
+   */
+  public boolean isReady() {
+    return hulls != null;
+  }
+
+  /**
+   * Returns how much of the table has been built, from 0 to 1.
+   */
+  public float getProgress() {
+    if (hulls != null) {
+      return 1;
+    }
+
+    int count = total;
+    return count > 0 ? Math.min((float) built / count, 1) : 0;
+  }
+
+  /**
+   * Starts building the table on a background thread.
+   */
+  public void start() {
+    Thread thread = new Thread(this::build, "HullTable");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    thread.start();
+  }
+
+  /**
+   * Builds the table.
+   */
+  private void build() {
+    VesselData vesselData;
+    int maxId = -1;
+    int count = 0;
+
+    synchronized (this) {
+      vesselData = ctx.getVesselData();
+
+      for (Vessel vessel : vesselData.getVessels()) {
+        maxId = Math.max(maxId, vessel.getId());
+        count++;
+      }
+    }
+
+    total = count;
+
+    Hull[] array = new Hull[Math.min(maxId, MAX_HULL_ID) + 1];
+
+    for (Vessel vessel : vesselData.getVessels()) {
+      int id = vessel.getId();
+
+      if (id >= 0 && id < array.length) {
+        synchronized (this) {
+          Hull hull = early.get(id);
+          array[id] = hull != null ? hull : new Hull(vessel);
+        }
+      }
+
+      built++;
+    }
+
+    synchronized (this) {
+      hulls = array;
+      early = null;
+    }
+  }
+
+  /**
+   * What the displays need to know about a single hull.
+   */
+  public static class Hull {
+    private Vessel vessel;
+    private Model model;
+    private Faction faction;
+    private int factionAttributes;
+    private int tubeCount;
+    private BaseType baseType;
+
+    private Hull(Vessel vessel) {
+      this.vessel = vessel;
+      model = vessel.getModel();
+      faction = vessel.getFaction();
+
+      if (faction != null) {
+        for (FactionAttribute attr : FactionAttribute.values()) {
+          if (faction.is(attr)) {
+            factionAttributes |= 1 << attr.ordinal();
+          }
+        }
+      }
+
+      Object[] tubes = vessel.getTorepedoTubes();
+      tubeCount = tubes != null ? tubes.length : 0;
+      baseType = vessel.is(VesselAttribute.BASE) ? BaseType.detectBaseType(vessel) : null;
+    }
+
+    public Vessel getVessel() {
+      return vessel;
+    }
+
+    public Model getModel() {
+      return model;
+    }
+
+    public Faction getFaction() {
+      return faction;
+    }
+
+    /**
+     * Returns true if the hull's Faction has the given attribute.
+     */
+    public boolean is(FactionAttribute attr) {
+      return (factionAttributes & 1 << attr.ordinal()) != 0;
+    }
+
+    public int getTubeCount() {
+      return tubeCount;
+    }
+
+    /**
+     * Returns the BaseType for this hull, or null if it's not a base.
+     */
+    public BaseType getBaseType() {
+      return baseType;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.walkertribe.artemisdisplay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.walkertribe.artemisdisplay.Configuration.RenderOption;
+import com.walkertribe.artemisdisplay.metrics.RenderTimer;
+
+/**
+ * <p>
+ * Watches frame render times and turns off expensive render options when the machine can't keep
+ * up with the target frame rate, then turns them back on when there's room again. Options are
+ * turned off one at a time, cheapest loss of quality first: static on impact, ship silhouettes,
+ * antialiasing, and finally subpixel font rendering. Options the user didn't turn on are skipped.
+ * </p>
+ * <p>
+ * To keep quality from flickering back and forth, an option is only turned off after several
+ * slow intervals in a row, and only turned back on after a longer run of intervals where frames
+ * took well under the budget. If turning an option back on promptly makes frames slow again, the
+ * governor waits twice as long before trying again.
+ * </p>
+ * @author rjwut
+ */
+public class QualityGovernor {
+  private static final RenderOption[] STEPS = {
+    RenderOption.IMPACT_STATIC,
+    RenderOption.DRAW_SILHOUETTES,
+    RenderOption.ANTIALIASING,
+    RenderOption.SUBPIXEL_FONT_RENDERING
+  };
+  private static final int INTERVALS_TO_STEP_DOWN = 2;
+  private static final int MIN_INTERVALS_TO_STEP_UP = 10;
+  private static final int MAX_INTERVALS_TO_STEP_UP = 160;
+  private static final float STEP_UP_HEADROOM = 0.6f;
+
+  private long budgetUs;
+  private RenderOption[] steps;
+  private volatile int level;
+  private int slowIntervals;
+  private int fastIntervals;
+  private int intervalsToStepUp = MIN_INTERVALS_TO_STEP_UP;
+  private int intervalsSinceStepUp = Integer.MAX_VALUE;
+
+  /**
+   * Creates a QualityGovernor that tries to keep frames within the time budget for the configured
+   * target frame rate.
+   */
+  QualityGovernor(Configuration config) {
+    budgetUs = (long) (1000000 / config.getTargetFps());
+    List<RenderOption> list = new ArrayList<>();
+
+    for (RenderOption option : STEPS) {
+      if (config.getRenderOption(option)) {
+        list.add(option);
+      }
+    }
+
+    steps = list.toArray(new RenderOption[list.size()]);
+  }
+
+  /**
+   * Returns true if the governor has turned off the given option.
+   */
+  public boolean isSuppressed(RenderOption option) {
+    int curLevel = level;
+
+    for (int i = 0; i < curLevel; i++) {
+      if (steps[i] == option) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns the options that are currently turned off, in the order they were turned off.
+   */
+  public List<RenderOption> getSuppressed() {
+    List<RenderOption> list = new ArrayList<>();
+
+    for (int i = 0; i < level; i++) {
+      list.add(steps[i]);
+    }
+
+    return list;
+  }
+
+  /**
+   * Considers the frame times for the last interval, and adjusts the quality level if needed.
+   * Returns true if the level changed.
+   */
+  boolean evaluate(RenderTimer.Snapshot frame) {
+    if (frame.getCount() == 0) {
+      return false;
+    }
+
+    long frameUs = frame.getP95();
+
+    if (intervalsSinceStepUp != Integer.MAX_VALUE) {
+      intervalsSinceStepUp++;
+    }
+
+    if (frameUs > budgetUs) {
+      fastIntervals = 0;
+
+      if (++slowIntervals >= INTERVALS_TO_STEP_DOWN && level < steps.length) {
+        if (intervalsSinceStepUp <= intervalsToStepUp) {
+          // The option we just turned back on was too much; back off
+          intervalsToStepUp = Math.min(intervalsToStepUp * 2, MAX_INTERVALS_TO_STEP_UP);
+        } else {
+          intervalsToStepUp = MIN_INTERVALS_TO_STEP_UP;
+        }
+
+        slowIntervals = 0;
+        intervalsSinceStepUp = Integer.MAX_VALUE;
+        level++;
+        return true;
+      }
+    } else if (frameUs < budgetUs * STEP_UP_HEADROOM) {
+      slowIntervals = 0;
+
+      if (++fastIntervals >= intervalsToStepUp && level > 0) {
+        fastIntervals = 0;
+        intervalsSinceStepUp = 0;
+        level--;
+        return true;
+      }
+    } else {
+      slowIntervals = 0;
+      fastIntervals = 0;
+    }
+
+    return false;
+  }
+}
@@ -0,0 +1,83 @@
+package com.walkertribe.artemisdisplay;
+
+import com.walkertribe.ian.enums.ShipSystem;
+import com.walkertribe.ian.iface.Listener;
+import com.walkertribe.ian.protocol.core.eng.EngGridUpdatePacket;
+import com.walkertribe.ian.protocol.core.setup.AllShipSettingsPacket;
+import com.walkertribe.ian.util.Grid;
+import com.walkertribe.ian.util.GridNode;
+
+/**
+ * <p>
+ * Keeps the average damage of each ShipSystem's grid nodes, so that displays can read a system's
+ * health without grouping and streaming the whole Grid every frame. The averages are recomputed
+ * in one pass over the Grid whenever it's updated, and published as a new array, so readers on
+ * other threads always see a complete set.
+ * </p>
+ * <p>
+ * This must be added as a listener after the Grid, so that it sees each update after the Grid has
+ * applied it.
+ * </p>
+ * @author rjwut
+ */
+public class SystemHealthTracker {
+  private static final ShipSystem[] SYSTEMS = ShipSystem.values();
+
+  private Grid grid;
+  private volatile float[] damage;
+
+  /**
+   * Creates a tracker for the given Grid.
+   */
+  public SystemHealthTracker(Grid grid) {
+    this.grid = grid;
+  }
+
+  @Listener
+  public void onGridUpdate(EngGridUpdatePacket pkt) {
+    update();
+  }
+
+  @Listener
+  public void onShipSettings(AllShipSettingsPacket pkt) {
+    update();
+  }
+
+  /**
+   * Returns the average damage of the given system's nodes, from 0 (undamaged) to 1 (destroyed), or
+   * NaN if the system has no nodes.
+   */
+  public float getDamage(ShipSystem sys) {
+    float[] array = damage;
+
+    if (array == null) {
+      array = update();
+    }
+
+    return array[sys.ordinal()];
+  }
+
+  /**
+   * Recomputes the averages from the Grid and publishes them.
+   */
+  private float[] update() {
+    float[] sums = new float[SYSTEMS.length];
+    int[] counts = new int[SYSTEMS.length];
+
+    for (GridNode node : grid) {
+      ShipSystem sys = node.getSystem();
+
+      if (sys != null) {
+        sums[sys.ordinal()] += Math.max(node.getDamage(), 0);
+        counts[sys.ordinal()]++;
+      }
+    }
+
+    for (int i = 0; i < sums.length; i++) {
+      sums[i] = counts[i] != 0 ? sums[i] / counts[i] : Float.NaN;
+    }
+
+    damage = sums;
+    return sums;
+  }
+}
@@ -0,0 +1,114 @@
+package com.walkertribe.artemisdisplay;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.walkertribe.artemisdisplay.i18n.LocaleData;
+
+/**
+ * <p>
+ * Loads the things the displays would otherwise load the first time they need them, so that
+ * happens while the "Waiting for server" message is shown instead of during live play. The fonts
+ * are loaded and drawn once on a small thread pool, and the HullTable (which parses vesselData.xml
+ * and every model) is built on its own thread.
+ * </p>
+ * <p>
+ * Models are built one at a time rather than spread across the pool, because IAN's Context isn't
+ * safe to use from more than one thread at once.
+ * </p>
+ * @author rjwut
+ */
+public class Warmup {
+  private static final String SAMPLE_TEXT = "ABCDEFGHIJKLMNOPQRSTUVWXYZ abcdefghijklmnopqrstuvwxyz 0123456789%.:";
+
+  /**
+   * Starts warming up for the given Configuration and returns immediately.
+   */
+  public static Warmup start(Configuration config) {
+    Warmup warmup = new Warmup(config.getHullTable());
+    warmup.run();
+    return warmup;
+  }
+
+  private HullTable hulls;
+  private List<Supplier<Font>> fonts = new ArrayList<>();
+  private AtomicInteger fontsLoaded = new AtomicInteger();
+
+  private Warmup(HullTable hulls) {
+    this.hulls = hulls;
+    fonts.add(() -> Canvas.MONOSPACE_FONT);
+    fonts.add(() -> LocaleData.get().getFont());
+  }
+
+  /**
+   * Returns how much of the warm-up is finished, from 0 to 1.
+   */
+  public float getProgress() {
+    float progress = fontsLoaded.get();
+    int steps = fonts.size();
+
+    if (hulls != null) {
+      progress += hulls.getProgress();
+      steps++;
+    }
+
+    return progress / steps;
+  }
+
+  /**
+   * Returns true once everything has been loaded.
+   */
+  public boolean isDone() {
+    return fontsLoaded.get() == fonts.size() && (hulls == null || hulls.isReady());
+  }
+
+  /**
+   * Submits the font tasks to a pool of daemon threads, which exit when they're done.
+   */
+  private void run() {
+    ExecutorService pool = Executors.newFixedThreadPool(fonts.size(), runnable -> {
+      Thread thread = new Thread(runnable, "Warmup");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+
+    for (Supplier<Font> font : fonts) {
+      pool.execute(() -> {
+        try {
+          warmFont(font.get());
+        } finally {
+          fontsLoaded.incrementAndGet();
+        }
+      });
+    }
+
+    pool.shutdown();
+  }
+
+  /**
+   * Draws sample text in the given font, which loads the font file and initializes the text
+   * pipeline.
+   */
+  private static void warmFont(Font font) {
+    BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+
+    try {
+      g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+      g.setFont(font);
+      g.getFontMetrics().getStringBounds(SAMPLE_TEXT, g);
+      g.drawString(SAMPLE_TEXT, 0, 0);
+    } finally {
+      g.dispose();
+    }
+  }
+}
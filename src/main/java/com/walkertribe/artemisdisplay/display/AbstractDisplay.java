@@ -8,7 +8,11 @@ import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
 
 import com.walkertribe.artemisdisplay.ArtemisDisplay;
+import com.walkertribe.artemisdisplay.HullTable;
+import com.walkertribe.artemisdisplay.display.layout.Layout;
 import com.walkertribe.artemisdisplay.i18n.LocaleData;
+import com.walkertribe.artemisdisplay.metrics.FlightRecorder;
+import com.walkertribe.artemisdisplay.metrics.RenderTimer;
 import com.walkertribe.artemisdisplay.render.Util;
 import com.walkertribe.ian.Context;
 import com.walkertribe.ian.iface.ArtemisNetworkInterface;
@@ -27,20 +31,26 @@ public abstract class AbstractDisplay implements Display {
 
   protected ArtemisDisplay app;
   protected Context ctx;
+  protected HullTable hulls;
   protected LocaleData localeData;
   protected ArtemisNetworkInterface iface;
   private String title;
   private boolean border;
+  private float frameRate;
+  private RenderTimer renderTimer;
 
   public AbstractDisplay(ArtemisDisplay app, Context ctx) {
     this.app = app;
     this.ctx = ctx;
+    hulls = app.getConfig().getHullTable();
     this.localeData = LocaleData.get();
+    renderTimer = app.getRenderStats().register(getClass().getSimpleName(), this instanceof Layout);
   }
 
   @Override
   public void setTitle(String title) {
     this.title = title;
+    renderTimer.setName(title != null ? title : getClass().getSimpleName());
   }
 
   @Override
@@ -48,6 +58,25 @@ public abstract class AbstractDisplay implements Display {
     this.border = border;
   }
 
+  @Override
+  public void setFrameRate(float fps) {
+    if (fps < 0) {
+      throw new IllegalArgumentException("Frame rate cannot be negative: " + fps);
+    }
+
+    frameRate = fps;
+  }
+
+  @Override
+  public float getFrameRate() {
+    return frameRate;
+  }
+
+  @Override
+  public float getMaxFrameRate() {
+    return frameRate;
+  }
+
   @Override
   public void attach(ArtemisNetworkInterface iface) {
     if (iface == this.iface) {
@@ -85,6 +114,8 @@ public abstract class AbstractDisplay implements Display {
 
   @Override
   public final void render(Graphics2D g) {
+    Object renderEvent = FlightRecorder.beginDisplay();
+    long start = System.nanoTime();
     renderImpl(g);
     Rectangle bounds = g.getClipBounds();
 
@@ -104,5 +135,8 @@ public abstract class AbstractDisplay implements Display {
       g.setStroke(Util.ONE_PIXEL_STROKE);
       g.drawRect(bounds.x, bounds.y, bounds.width - 1, bounds.height - 1);
     }
+
+    renderTimer.record(System.nanoTime() - start);
+    FlightRecorder.endDisplay(renderEvent, renderTimer.getName());
   }
 }
@@ -1,12 +1,17 @@
 package com.walkertribe.artemisdisplay.display;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.util.Map;
 
 import com.walkertribe.artemisdisplay.ArtemisDisplay;
 import com.walkertribe.artemisdisplay.Canvas;
 import com.walkertribe.artemisdisplay.TextFitter;
+import com.walkertribe.artemisdisplay.render.OffscreenSurface;
 import com.walkertribe.ian.Context;
 import com.walkertribe.ian.enums.AlertStatus;
 import com.walkertribe.ian.iface.Listener;
@@ -24,6 +29,13 @@ import com.walkertribe.ian.world.ArtemisPlayer;
  * <li>YELLOW: Normal alert status, shields up</li>
  * <li>RED: Red alert status (always animated)</li>
  * </ul>
+ * <p>
+ * The animation repeats every ANIMATION_INTERVAL, so it's divided into PHASES steps, and each
+ * condition precomputes its block colors and text opacity for every phase. The text is the only
+ * expensive part, so it's rendered once into a surface, which is drawn with the phase's opacity.
+ * The blocks are filled directly each frame. This keeps the memory used the same as one frame,
+ * however large the display is.
+ * </p>
  * @author rjwut
  */
 public class AlertDisplay extends AbstractDisplay {
@@ -32,6 +44,7 @@ public class AlertDisplay extends AbstractDisplay {
   private static final long ANIMATION_INTERVAL = 2000;
   private static final int BLOCK_COUNT = 10;
   private static final long OFFSET = ANIMATION_INTERVAL / BLOCK_COUNT;
+  private static final int PHASES = 64;
 
   /**
    * The various alert conditions.
@@ -43,52 +56,71 @@ public class AlertDisplay extends AbstractDisplay {
     RED(Color.RED);
 
     private Color color;
+    private Color[][] palette = new Color[PHASES][BLOCK_COUNT];
+    private AlphaComposite[] textComposites = new AlphaComposite[PHASES];
 
     private Condition(Color color) {
       this.color = color;
+
+      for (int p = 0; p < PHASES; p++) {
+        long phase0 = p * ANIMATION_INTERVAL / PHASES;
+
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+          long phase = (phase0 + i * OFFSET) % ANIMATION_INTERVAL;
+          float alpha = 1 - (0.8f * phase / ANIMATION_INTERVAL);
+          palette[p][i] = new Color(color.getRed(), color.getGreen(), color.getBlue(), Math.round(alpha * 255));
+        }
+
+        // The text has the same opacity as the innermost blocks
+        textComposites[p] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, palette[p][0].getAlpha() / 255f);
+      }
     }
   }
 
   /**
-   * The three different aspects with which the display can be shown.
+   * The three different aspects with which the display can be shown. Each one renders the text,
+   * returning the area it occupies, and then fills the blocks around it. Both are given the size of
+   * the display, with its upper-left corner at the origin.
    */
   private enum Aspect {
     WIDE {
       @Override
-      void render(Graphics2D g, String text, Color[] colors) {
-        Rectangle bounds = g.getClipBounds();
-        g.setColor(colors[0]);
-        TextFitter textFitter = Canvas.getTextFitter(false).ignoreDescent();
-        Rectangle textArea = textFitter.render(g, bounds, text);
-        int y0 = (int) bounds.getCenterY();
-        int dy = (int) (0.25f * bounds.height / BLOCK_COUNT);
-        int width = textArea.x - bounds.x - dy;
-        int rightX = bounds.width - width;
+      Rectangle renderText(Graphics2D g, String text) {
+        return Canvas.getTextFitter(false).ignoreDescent().render(g, g.getClipBounds(), text);
+      }
+
+      @Override
+      void renderBlocks(Graphics2D g, int width, int height, Rectangle textArea, Color[] colors) {
+        int y0 = height / 2;
+        int dy = (int) (0.25f * height / BLOCK_COUNT);
+        int blockWidth = textArea.x - dy;
+        int rightX = width - blockWidth;
 
         for (int i = 0; i < BLOCK_COUNT; i++) {
           g.setColor(colors[i]);
           int topY = y0 - (i * 2 + 1) * dy;
           int bottomY = y0 + i * 2 * dy;
           // left top
-          g.fill(new Rectangle(bounds.x, topY, width, dy));
+          g.fillRect(0, topY, blockWidth, dy);
           // left bottom
-          g.fill(new Rectangle(bounds.y, bottomY, width, dy));
+          g.fillRect(0, bottomY, blockWidth, dy);
           // right top
-          g.fill(new Rectangle(rightX, topY, width, dy));
+          g.fillRect(rightX, topY, blockWidth, dy);
           // right bottom
-          g.fill(new Rectangle(rightX, bottomY, width ,dy));
+          g.fillRect(rightX, bottomY, blockWidth, dy);
         }
       }
     },
     REGULAR {
       @Override
-      void render(Graphics2D g, String text, Color[] colors) {
-        Rectangle bounds = g.getClipBounds();
-        g.setColor(colors[0]);
-        TextFitter textFitter = Canvas.getTextFitter(false).padding(0.3f);
-        Rectangle textArea = textFitter.render(g, bounds, text);
-        int dx = (int) (0.5f * (textArea.x - bounds.x) / BLOCK_COUNT);
-        int dy = (int) (0.5f * (textArea.y - bounds.y) / BLOCK_COUNT);
+      Rectangle renderText(Graphics2D g, String text) {
+        return Canvas.getTextFitter(false).padding(0.3f).render(g, g.getClipBounds(), text);
+      }
+
+      @Override
+      void renderBlocks(Graphics2D g, int width, int height, Rectangle textArea, Color[] colors) {
+        int dx = (int) (0.5f * textArea.x / BLOCK_COUNT);
+        int dy = (int) (0.5f * textArea.y / BLOCK_COUNT);
 
         for (int i = 0; i < BLOCK_COUNT; i++) {
           g.setColor(colors[i]);
@@ -96,48 +128,59 @@ public class AlertDisplay extends AbstractDisplay {
           int x1 = textArea.x - (n - 1) * dx;
           int w = textArea.width + (n - 1) * dx * 2;
           // top
-          g.fill(new Rectangle(x1, textArea.y - (n + 1) * dy, w, dy));
+          g.fillRect(x1, textArea.y - (n + 1) * dy, w, dy);
           // bottom
-          g.fill(new Rectangle(x1, textArea.y + textArea.height + n * dy, w, dy));
+          g.fillRect(x1, textArea.y + textArea.height + n * dy, w, dy);
           // left
-          g.fill(new Rectangle(x1 - dx * 2, textArea.y, dx, textArea.height));
+          g.fillRect(x1 - dx * 2, textArea.y, dx, textArea.height);
           // right
-          g.fill(new Rectangle(textArea.x + textArea.width + n * dx, textArea.y, dx, textArea.height));
+          g.fillRect(textArea.x + textArea.width + n * dx, textArea.y, dx, textArea.height);
         }
       }
     },
     TALL {
       @Override
-      void render(Graphics2D g, String text, Color[] colors) {
-        Rectangle bounds = g.getClipBounds();
-        g.setColor(colors[0]);
-        TextFitter textFitter = Canvas.getTextFitter(false);
-        Rectangle textArea = textFitter.render(g, bounds, text);
-        int x0 = (int) bounds.getCenterX();
-        int dx = (int) (0.25f * bounds.width / BLOCK_COUNT);
-        int height = textArea.y - bounds.y - dx;
-        int bottomY = bounds.height - height;
+      Rectangle renderText(Graphics2D g, String text) {
+        return Canvas.getTextFitter(false).render(g, g.getClipBounds(), text);
+      }
+
+      @Override
+      void renderBlocks(Graphics2D g, int width, int height, Rectangle textArea, Color[] colors) {
+        int x0 = width / 2;
+        int dx = (int) (0.25f * width / BLOCK_COUNT);
+        int blockHeight = textArea.y - dx;
+        int bottomY = height - blockHeight;
 
         for (int i = 0; i < BLOCK_COUNT; i++) {
           g.setColor(colors[i]);
           int leftX = x0 - (i * 2 + 1) * dx;
           int rightX = x0 + i * 2 * dx;
           // left top
-          g.fill(new Rectangle(leftX, bounds.y, dx, height));
+          g.fillRect(leftX, 0, dx, blockHeight);
           // right top
-          g.fill(new Rectangle(rightX, bounds.y, dx, height));
+          g.fillRect(rightX, 0, dx, blockHeight);
           // left bottom
-          g.fill(new Rectangle(leftX, bottomY, dx, height));
+          g.fillRect(leftX, bottomY, dx, blockHeight);
           // right bottom
-          g.fill(new Rectangle(rightX, bottomY, dx, height));
+          g.fillRect(rightX, bottomY, dx, blockHeight);
         }
       }
     };
 
-    abstract void render(Graphics2D g, String text, Color[] colors);
+    abstract Rectangle renderText(Graphics2D g, String text);
+
+    abstract void renderBlocks(Graphics2D g, int width, int height, Rectangle textArea, Color[] colors);
   }
 
   private boolean docked;
+  // Not accelerated, since a layout may render this display off the event dispatch thread
+  private OffscreenSurface textSurface = new OffscreenSurface(this::paintText, true, false);
+  private Condition textCondition;
+  private Aspect textAspect;
+  private String textString;
+  private Object textAntialias;
+  private Map<?, ?> textHints;
+  private Rectangle textArea;
 
   public AlertDisplay(ArtemisDisplay app, Context ctx) {
     super(app, ctx);
@@ -185,6 +228,11 @@ public class AlertDisplay extends AbstractDisplay {
 
     // Render
     Rectangle bounds = g.getClipBounds();
+
+    if (bounds.isEmpty()) {
+      return; // the text surface won't paint at this size, so there's no text area to draw around
+    }
+
     float aspectRatio = bounds.width / (float) bounds.height;
     Aspect aspect;
 
@@ -197,8 +245,15 @@ public class AlertDisplay extends AbstractDisplay {
     }
 
     String text = localeData.string("alert.condition", condition);
-    Color[] colors = computeColors(condition, animated);
-    aspect.render(g, text, colors);
+    int phase = animated ? (int) (app.currentTimeMillis() % ANIMATION_INTERVAL * PHASES / ANIMATION_INTERVAL) : 0;
+    updateText(g, bounds, condition, aspect, text);
+    Composite composite = g.getComposite();
+    g.setComposite(condition.textComposites[phase]);
+    textSurface.draw(g, bounds.x, bounds.y);
+    g.setComposite(composite);
+    g.translate(bounds.x, bounds.y);
+    aspect.renderBlocks(g, bounds.width, bounds.height, textArea, condition.palette[phase]);
+    g.translate(-bounds.x, -bounds.y);
   }
 
   @Override
@@ -207,23 +262,33 @@ public class AlertDisplay extends AbstractDisplay {
   }
 
   /**
-   * Compute the Color array to be used to render the display.
+   * Sizes the text surface to the given bounds, and marks it for repainting if anything that
+   * affects how the text looks has changed. The surface is repainted before the text area is
+   * needed.
    */
-  private static Color[] computeColors(Condition condition, boolean animated) {
-    long phase0 = animated ? System.currentTimeMillis() % ANIMATION_INTERVAL : 0;
-    Color[] colors = new Color[BLOCK_COUNT];
-
-    for (int i = 0; i < BLOCK_COUNT; i++) {
-      long phase = (phase0 + i * OFFSET) % ANIMATION_INTERVAL;
-      float alpha = 1 - (0.8f * phase / ANIMATION_INTERVAL);
-      colors[i] = new Color(
-          condition.color.getRed(),
-          condition.color.getGreen(),
-          condition.color.getBlue(),
-          Math.round(alpha * 255)
-      );
+  private void updateText(Graphics2D g, Rectangle bounds, Condition condition, Aspect aspect, String text) {
+    Object antialias = g.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+
+    if (condition != textCondition || aspect != textAspect || !text.equals(textString)
+        || antialias != textAntialias) {
+      textCondition = condition;
+      textAspect = aspect;
+      textString = text;
+      textAntialias = antialias;
+      textHints = g.getRenderingHints();
+      textSurface.invalidate();
     }
 
-    return colors;
+    textSurface.setSize(bounds.width, bounds.height);
+    textSurface.update(g.getDeviceConfiguration());
+  }
+
+  /**
+   * Paints the text in the condition's color at full opacity, and records the area it occupies.
+   */
+  private void paintText(Graphics2D g, int width, int height) {
+    g.setRenderingHints(textHints);
+    g.setColor(textCondition.color);
+    textArea = textAspect.renderText(g, textString);
   }
 }
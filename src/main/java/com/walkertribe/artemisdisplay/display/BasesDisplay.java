@@ -7,6 +7,7 @@ import java.util.SortedSet;
 import com.walkertribe.artemisdisplay.ArtemisDisplay;
 import com.walkertribe.artemisdisplay.BaseMap;
 import com.walkertribe.artemisdisplay.BaseType;
+import com.walkertribe.artemisdisplay.HullTable;
 import com.walkertribe.artemisdisplay.i18n.LocaleData;
 import com.walkertribe.artemisdisplay.render.Table;
 import com.walkertribe.artemisdisplay.render.Util;
@@ -186,8 +187,10 @@ public class BasesDisplay extends AbstractDisplay {
   public void onBase(ArtemisBase update) {
     BaseMap.Entry<BaseType> entry = baseMap.offer(update, getPlayer());
 
-    if (entry.getData() == null && ctx != null) {
-      entry.setData(BaseType.detectBaseType(entry.getBase().getVessel(ctx)));
+    if (entry.getData() == null && hulls != null) {
+      HullTable.Hull hull = hulls.lookup(entry.getBase());
+      BaseType baseType = hull != null ? hull.getBaseType() : null;
+      entry.setData(baseType != null ? baseType : BaseType.OTHER);
     }
   }
 
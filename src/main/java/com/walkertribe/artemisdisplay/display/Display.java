@@ -103,4 +103,22 @@ public interface Display {
    * Sets the title to display at the top of the display.
    */
   void setTitle(String title);
+
+  /**
+   * Sets how many times per second the display should be redrawn when it's part of a Layout. The
+   * Layout redraws it into an image at that rate and reuses the image in between. A value of 0 (the
+   * default) means it's redrawn every frame.
+   */
+  void setFrameRate(float fps);
+
+  /**
+   * Returns the frame rate set with setFrameRate().
+   */
+  float getFrameRate();
+
+  /**
+   * Returns the highest frame rate set on this Display or any Display it contains, or 0 if none of
+   * them have one.
+   */
+  float getMaxFrameRate();
 }
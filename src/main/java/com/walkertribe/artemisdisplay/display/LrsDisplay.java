@@ -10,6 +10,6 @@ import com.walkertribe.ian.Context;
  */
 public class LrsDisplay extends MapDisplay {
   public LrsDisplay(ArtemisDisplay app, Context ctx) {
-    super(app, ctx, new MapProjection(app.getWorld(), ctx, MapProjection.Mode.LRS));
+    super(app, ctx, new MapProjection(app.getWorld(), app.getConfig().getHullTable(), MapProjection.Mode.LRS));
   }
 }
@@ -3,6 +3,7 @@ package com.walkertribe.artemisdisplay.display;
 import java.awt.Graphics2D;
 
 import com.walkertribe.artemisdisplay.ArtemisDisplay;
+import com.walkertribe.artemisdisplay.Configuration.RenderOption;
 import com.walkertribe.artemisdisplay.render.MapProjection;
 import com.walkertribe.ian.Context;
 import com.walkertribe.ian.enums.GameType;
@@ -34,6 +35,8 @@ public abstract class MapDisplay extends AbstractDisplay {
 
   @Override
   protected void renderImpl(Graphics2D g) {
+    projection.setDrawSilhouettes(app.getRenderOption(RenderOption.DRAW_SILHOUETTES));
+    projection.setIntRaster(app.getRenderOption(RenderOption.INT_RASTER));
     projection.render(g, getPlayer(), gameType);
   }
 }
@@ -18,6 +18,8 @@ import com.walkertribe.artemisdisplay.render.RenderMode;
 import com.walkertribe.artemisdisplay.render.TopDownObjectRenderer;
 import com.walkertribe.artemisdisplay.util.Angle;
 import com.walkertribe.ian.Context;
+import com.walkertribe.ian.iface.Listener;
+import com.walkertribe.ian.protocol.core.eng.EngGridUpdatePacket;
 import com.walkertribe.ian.world.ArtemisObject;
 import com.walkertribe.ian.world.ArtemisPlayer;
 
@@ -32,11 +34,25 @@ public abstract class ObjectDisplay extends AbstractDisplay {
   private int targetId = NO_TARGET;
   private TextFitter textFitter;
   private TopDownObjectRenderer renderer;
+  private DataSheet sheet;
 
   public ObjectDisplay(ArtemisDisplay app, Context ctx) {
     super(app, ctx);
     textFitter = Canvas.getTextFitter(false).padding(0.1f);
-    renderer = new TopDownObjectRenderer(ctx, app.getWorld(), RenderMode.SOLID_WIREFRAME, false);
+    renderer = new TopDownObjectRenderer(hulls, app.getWorld(), RenderMode.SOLID_WIREFRAME, false);
+    sheet = new DataSheet(app);
+  }
+
+  @Listener
+  public void onObjectUpdated(ArtemisObject update) {
+    if (update.getId() == targetId) {
+      sheet.invalidate();
+    }
+  }
+
+  @Listener
+  public void onGridUpdated(EngGridUpdatePacket pkt) {
+    sheet.invalidate();
   }
 
   @Override
@@ -165,7 +181,7 @@ public abstract class ObjectDisplay extends AbstractDisplay {
     int y = bounds.y + Math.round(bounds.height * 0.05f);
     dataPanelWidth *= 0.9f;
     Rectangle dataSheetBounds = new Rectangle(x, y, dataPanelWidth, dataPanelHeight);
-    DataSheet sheet = new DataSheet(app, g, target, getPlayer());
-    sheet.render(dataSheetBounds);
+    sheet.update(target, getPlayer());
+    sheet.render(g, dataSheetBounds);
   }
 }
@@ -3,11 +3,10 @@ package com.walkertribe.artemisdisplay.display;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
-import java.util.List;
-import java.util.Map;
-import java.util.OptionalDouble;
 
 import com.walkertribe.artemisdisplay.ArtemisDisplay;
+import com.walkertribe.artemisdisplay.HullTable;
+import com.walkertribe.artemisdisplay.SystemHealthTracker;
 import com.walkertribe.artemisdisplay.render.Meter;
 import com.walkertribe.artemisdisplay.render.MeterBank;
 import com.walkertribe.artemisdisplay.render.ModelRenderer;
@@ -20,7 +19,6 @@ import com.walkertribe.ian.enums.ShipSystem;
 import com.walkertribe.ian.iface.Listener;
 import com.walkertribe.ian.model.Model;
 import com.walkertribe.ian.util.Grid;
-import com.walkertribe.ian.util.GridNode;
 import com.walkertribe.ian.world.Artemis;
 import com.walkertribe.ian.world.ArtemisPlayer;
 
@@ -32,6 +30,7 @@ public class SystemsDisplay extends AbstractDisplay {
   private static final Color MODEL_FILL = new Color(0, 0, 63);
   private static final int REVOLUTIONS_PER_MINUTE = 5;
   private static final long PERIOD = 60_000 / REVOLUTIONS_PER_MINUTE;
+  private static final ShipSystem[] SYSTEMS = ShipSystem.values();
 
   private Model model;
   private ModelRenderer<ThreeDRenderParams> renderer = new ThreeDModelRenderer();
@@ -47,11 +46,11 @@ public class SystemsDisplay extends AbstractDisplay {
 
   @Listener
   public void onPlayerObjectUpdated(ArtemisPlayer update) {
-    if (model == null && ctx != null) {
-      Model newModel = update.getModel(ctx);
+    if (model == null && hulls != null) {
+      HullTable.Hull hull = hulls.lookup(update);
 
-      if (newModel != null) {
-        model = newModel;
+      if (hull != null && hull.getModel() != null) {
+        model = hull.getModel();
       }
     }
   }
@@ -74,7 +73,7 @@ public class SystemsDisplay extends AbstractDisplay {
     float modelDisplayWidth = bounds.width * MODEL_DISPLAY_WIDTH;
     double cx = modelDisplayWidth / 2 + bounds.getMinX();
     double cy = bounds.getCenterY();
-    double theta = Math.PI * 2 * (System.currentTimeMillis() % PERIOD) / PERIOD;
+    double theta = Math.PI * 2 * (app.currentTimeMillis() % PERIOD) / PERIOD;
     params.offsetX(cx);
     params.offsetZ(cy);
     params.rotateZ(theta);
@@ -94,15 +93,12 @@ public class SystemsDisplay extends AbstractDisplay {
     double y0 = cy - meterBankHeight / 2;
     int x0 = (int) (bounds.x + modelDisplayWidth + meterPanelWidth * 0.05);
     double y = y0;
-    Map<ShipSystem, List<GridNode>> map = grid.groupNodesBySystem();
+    SystemHealthTracker systemHealth = app.getSystemHealth();
     MeterBank meterBank = new MeterBank(g);
 
-    for (Map.Entry<ShipSystem, List<GridNode>> entry : map.entrySet()) {
-      OptionalDouble damage = entry.getValue().stream()
-          .mapToDouble(node -> Math.max(node.getDamage(), 0))
-          .average();
-      float health = 1 - (float) damage.orElse(1);
-      ShipSystem sys = entry.getKey();
+    for (ShipSystem sys : SYSTEMS) {
+      float damage = systemHealth.getDamage(sys);
+      float health = Float.isNaN(damage) ? 0 : 1 - damage;
       String key;
 
       if (sys == ShipSystem.WARP_JUMP_DRIVE) {
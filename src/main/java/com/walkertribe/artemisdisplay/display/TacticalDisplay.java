@@ -10,6 +10,6 @@ import com.walkertribe.ian.Context;
  */
 public class TacticalDisplay extends MapDisplay {
   public TacticalDisplay(ArtemisDisplay app, Context ctx) {
-    super(app, ctx, new MapProjection(app.getWorld(), ctx, MapProjection.Mode.TACTICAL));
+    super(app, ctx, new MapProjection(app.getWorld(), app.getConfig().getHullTable(), MapProjection.Mode.TACTICAL));
   }
 }
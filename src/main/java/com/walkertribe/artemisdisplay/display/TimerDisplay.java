@@ -25,7 +25,7 @@ public class TimerDisplay extends AbstractDisplay {
   @Override
   public void onPlayerSpawn(ArtemisPlayer player) {
     if (startTime == -1) {
-      startTime = System.currentTimeMillis();
+      startTime = app.currentTimeMillis();
     }
   }
 
@@ -35,7 +35,7 @@ public class TimerDisplay extends AbstractDisplay {
       return;
     }
 
-    int seconds = (int) (System.currentTimeMillis() - startTime) / 1000;
+    int seconds = (int) (app.currentTimeMillis() - startTime) / 1000;
     int minutes = (int) Math.floor(seconds / 60);
     seconds -= minutes * 60;
     StringBuilder b = new StringBuilder();
@@ -4,12 +4,12 @@ import java.awt.Graphics2D;
 import java.awt.Rectangle;
 
 import com.walkertribe.artemisdisplay.ArtemisDisplay;
+import com.walkertribe.artemisdisplay.HullTable;
 import com.walkertribe.artemisdisplay.render.Meter.ColorScheme;
 import com.walkertribe.artemisdisplay.render.MeterBank;
 import com.walkertribe.ian.Context;
 import com.walkertribe.ian.enums.OrdnanceType;
 import com.walkertribe.ian.enums.TubeState;
-import com.walkertribe.ian.vesseldata.Vessel;
 import com.walkertribe.ian.world.Artemis;
 import com.walkertribe.ian.world.ArtemisPlayer;
 
@@ -37,14 +37,10 @@ public class TubesDisplay extends AbstractDisplay {
     }
 
     if (tubeCount == -1) {
-      Context ctx = app.getConfig().getContext();
+      HullTable.Hull hull = hulls != null ? hulls.lookup(player) : null;
 
-      if (ctx != null) {
-        Vessel vessel = player.getVessel(ctx);
-
-        if (vessel != null) {
-          tubeCount = vessel.getTorepedoTubes().length;
-        }
+      if (hull != null) {
+        tubeCount = hull.getTubeCount();
       }
     }
 
@@ -3,12 +3,21 @@ package com.walkertribe.artemisdisplay.display.layout;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
 
 import com.walkertribe.artemisdisplay.ArtemisDisplay;
 import com.walkertribe.artemisdisplay.display.AbstractDisplay;
 import com.walkertribe.artemisdisplay.display.Display;
+import com.walkertribe.artemisdisplay.render.OffscreenSurface;
 import com.walkertribe.artemisdisplay.render.Util;
 import com.walkertribe.ian.Context;
 import com.walkertribe.ian.iface.ArtemisNetworkInterface;
@@ -16,7 +25,10 @@ import com.walkertribe.ian.world.ArtemisPlayer;
 
 /**
  * Abstract implementation of Layout. Stores entries and delegates positioning and sizing to
- * subclass.
+ * subclass. Entries with a frame rate are rendered into their own OffscreenSurfaces at that rate,
+ * and the surfaces are drawn every frame. In parallel mode, all entries are rendered into surfaces
+ * at the same time on a shared ForkJoinPool, then drawn in order on the calling thread. This relies
+ * on displays reaching IAN's Context only through the HullTable, which serializes access to it.
  * @author rjwut
  */
 public abstract class AbstractLayout<T> extends AbstractDisplay implements Layout<T> {
@@ -26,6 +38,9 @@ public abstract class AbstractLayout<T> extends AbstractDisplay implements Layou
   private static class Entry<T> {
     private Display display;
     private T params;
+    private OffscreenSurface surface;
+    private Map<?, ?> hints;
+    private long nextRenderTime;
 
     private Entry(Display display, T params) {
       this.display = display;
@@ -33,6 +48,20 @@ public abstract class AbstractLayout<T> extends AbstractDisplay implements Layou
     }
   }
 
+  private static ForkJoinPool renderPool;
+
+  /**
+   * Returns the ForkJoinPool used to render children in parallel, creating it if needed. It has one
+   * thread per processor.
+   */
+  private static synchronized ForkJoinPool getRenderPool() {
+    if (renderPool == null) {
+      renderPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    return renderPool;
+  }
+
   /**
    * Given the Layout parameters and parent Display bounds, computes the child Display's bounds.
    */
@@ -40,9 +69,11 @@ public abstract class AbstractLayout<T> extends AbstractDisplay implements Layou
 
   private List<Entry<T>> entries = new LinkedList<>();
   private ArtemisNetworkInterface iface;
+  private boolean parallel;
 
   protected AbstractLayout(ArtemisDisplay app, Context ctx) {
     super(app, ctx);
+    parallel = app.getConfig().isParallelLayout();
   }
 
   @Override
@@ -65,8 +96,22 @@ public abstract class AbstractLayout<T> extends AbstractDisplay implements Layou
   public void renderImpl(Graphics2D g) {
     Rectangle bounds = g.getClipBounds();
 
+    if (parallel && entries.size() > 1 && !ForkJoinTask.inForkJoinPool()) {
+      renderParallel(g, bounds);
+      return;
+    }
+
     for (Entry<T> entry : entries) {
-      g.setClip(computeBounds(bounds, entry.params));
+      Rectangle childBounds = computeBounds(bounds, entry.params);
+
+      if (entry.display.getFrameRate() > 0) {
+        g.setClip(bounds);
+        prepareSurface(entry, childBounds, g.getRenderingHints(), app.currentTimeMillis());
+        entry.surface.draw(g, childBounds.x, childBounds.y);
+        continue;
+      }
+
+      g.setClip(childBounds);
       g.setColor(Color.WHITE);
       g.setStroke(Util.ONE_PIXEL_STROKE);
       entry.display.render(g);
@@ -75,6 +120,89 @@ public abstract class AbstractLayout<T> extends AbstractDisplay implements Layou
     g.setClip(bounds);
   }
 
+  /**
+   * Renders the children into their surfaces on the render pool, then draws the surfaces in order.
+   * Nested Layouts render their own children sequentially, since they're already running on the
+   * pool.
+   */
+  private void renderParallel(Graphics2D g, Rectangle bounds) {
+    List<Callable<Void>> tasks = new ArrayList<>(entries.size());
+    List<Rectangle> childBounds = new ArrayList<>(entries.size());
+    RenderingHints hints = (RenderingHints) g.getRenderingHints().clone();
+    long now = app.currentTimeMillis();
+
+    for (Entry<T> entry : entries) {
+      Rectangle entryBounds = computeBounds(bounds, entry.params);
+      childBounds.add(entryBounds);
+      prepareSurface(entry, entryBounds, hints, now);
+
+      if (!entry.surface.isValid()) {
+        tasks.add(() -> {
+          entry.surface.update(null);
+          return null;
+        });
+      }
+    }
+
+    for (Future<Void> future : getRenderPool().invokeAll(tasks)) {
+      try {
+        future.get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException ex) {
+        throw new RuntimeException(ex.getCause());
+      }
+    }
+
+    int i = 0;
+
+    for (Entry<T> entry : entries) {
+      Rectangle entryBounds = childBounds.get(i++);
+      entry.surface.draw(g, entryBounds.x, entryBounds.y);
+    }
+  }
+
+  /**
+   * Makes sure the given entry has a surface of the right size, and invalidates it if the entry is
+   * due to be rendered: because it has no frame rate and so is rendered every frame, or because its
+   * next render time has arrived. Surfaces are only accelerated in sequential mode, since they
+   * can't be painted from the render pool otherwise.
+   */
+  private void prepareSurface(Entry<T> entry, Rectangle childBounds, Map<?, ?> hints, long now) {
+    if (entry.surface == null) {
+      entry.surface = new OffscreenSurface((g, width, height) -> {
+        g.setRenderingHints(entry.hints);
+        g.setColor(Color.WHITE);
+        g.setStroke(Util.ONE_PIXEL_STROKE);
+        entry.display.render(g);
+        float frameRate = entry.display.getFrameRate();
+
+        if (frameRate > 0) {
+          entry.nextRenderTime = app.currentTimeMillis() + (long) (1000 / frameRate);
+        }
+      }, true, !parallel);
+    }
+
+    entry.surface.setSize(childBounds.width, childBounds.height);
+    entry.hints = hints;
+
+    if (entry.display.getFrameRate() <= 0 || now >= entry.nextRenderTime) {
+      entry.surface.invalidate();
+    }
+  }
+
+  @Override
+  public float getMaxFrameRate() {
+    float max = super.getMaxFrameRate();
+
+    for (Entry<T> entry : entries) {
+      max = Math.max(max, entry.display.getMaxFrameRate());
+    }
+
+    return max;
+  }
+
   @Override
   public void onPlayerSpawn(ArtemisPlayer player) {
     for (Entry<T> entry : entries) {
@@ -100,6 +228,11 @@ public abstract class AbstractLayout<T> extends AbstractDisplay implements Layou
   public void reset() {
     for (Entry<T> entry : entries) {
       entry.display.reset();
+      entry.nextRenderTime = 0;
+
+      if (entry.surface != null) {
+        entry.surface.invalidate();
+      }
     }
   }
 }
\ No newline at end of file
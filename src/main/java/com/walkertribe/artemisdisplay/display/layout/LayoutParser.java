@@ -62,6 +62,10 @@ public class LayoutParser {
       display.setTitle(config.getString("title"));
     }
 
+    if (config.has("fps")) {
+      display.setFrameRate((float) config.getDouble("fps"));
+    }
+
     return display;
   }
 
@@ -0,0 +1,84 @@
+package com.walkertribe.artemisdisplay.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit and miss counters for a cache. Caches obtain an instance with register() and report each
+ * lookup; all registered instances are published by the MetricsServer.
+ * @author rjwut
+ */
+public class CacheStats {
+  private static final List<CacheStats> REGISTRY = new CopyOnWriteArrayList<>();
+
+  /**
+   * Creates a CacheStats object with the given name and adds it to the registry. Names should be
+   * lowercase with underscores, since they're used as Prometheus label values.
+   */
+  public static CacheStats register(String name) {
+    CacheStats stats = new CacheStats(name);
+    REGISTRY.add(stats);
+    return stats;
+  }
+
+  /**
+   * Returns all registered CacheStats objects.
+   */
+  public static List<CacheStats> all() {
+    return new ArrayList<>(REGISTRY);
+  }
+
+  private String name;
+  private LongAdder hits = new LongAdder();
+  private LongAdder misses = new LongAdder();
+
+  private CacheStats(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Returns the name of the cache.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Records a cache hit.
+   */
+  public void hit() {
+    hits.increment();
+  }
+
+  /**
+   * Records a cache miss.
+   */
+  public void miss() {
+    misses.increment();
+  }
+
+  /**
+   * Returns the number of hits so far.
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of misses so far.
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the fraction of lookups that were hits, or 0 if there haven't been any lookups.
+   */
+  public double getHitRate() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return total != 0 ? (double) h / total : 0;
+  }
+}
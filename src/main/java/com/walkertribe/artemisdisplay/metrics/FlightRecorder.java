@@ -0,0 +1,145 @@
+package com.walkertribe.artemisdisplay.metrics;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * <p>
+ * Emits Java Flight Recorder events for packets, World changes, frames, Display renders, and
+ * mission updates, so that a recording of a game can be opened in JDK Mission Control afterward
+ * to see what was going on when frames were dropped.
+ * </p>
+ * <p>
+ * JFR isn't present in every Java 8 runtime, so nothing here touches the jdk.jfr package unless
+ * it's available. Until start() is invoked, every method in this class returns immediately.
+ * </p>
+ * @author rjwut
+ */
+public final class FlightRecorder {
+  private static final boolean AVAILABLE;
+
+  static {
+    boolean available;
+
+    try {
+      Class.forName("jdk.jfr.Event");
+      available = true;
+    } catch (ClassNotFoundException ex) {
+      available = false;
+    }
+
+    AVAILABLE = available;
+  }
+
+  private static volatile boolean recording;
+
+  private FlightRecorder() { }
+
+  /**
+   * Returns true if this JVM supports Java Flight Recorder.
+   */
+  public static boolean isAvailable() {
+    return AVAILABLE;
+  }
+
+  /**
+   * Returns true if a recording is in progress.
+   */
+  public static boolean isRecording() {
+    return recording;
+  }
+
+  /**
+   * Starts recording to the given file. The file is written when stop() is invoked or the JVM
+   * exits.
+   */
+  public static synchronized void start(File file) throws IOException {
+    if (!AVAILABLE) {
+      throw new IllegalStateException("Java Flight Recorder is not available in this JVM");
+    }
+
+    if (!recording) {
+      JfrEvents.start(file);
+      recording = true;
+    }
+  }
+
+  /**
+   * Stops recording and writes the file.
+   */
+  public static synchronized void stop() {
+    if (recording) {
+      recording = false;
+      JfrEvents.stop();
+    }
+  }
+
+  /**
+   * Records that a packet of the given type was received and dispatched to listeners.
+   */
+  public static void packetReceived(String type) {
+    if (recording) {
+      JfrEvents.packetReceived(type);
+    }
+  }
+
+  /**
+   * Records a raw packet seen by the packet recorder or sent by the replay server. The type is the
+   * packet type value from the packet header.
+   */
+  public static void packetWire(String source, int type, int size) {
+    if (recording) {
+      JfrEvents.packetWire(source, type, size);
+    }
+  }
+
+  /**
+   * Records that an object was created, updated, or deleted in the World.
+   */
+  public static void worldObjectChange(String change, String type, int id) {
+    if (recording) {
+      JfrEvents.worldObjectChange(change, type, id);
+    }
+  }
+
+  /**
+   * Marks the start of a frame. Pass the returned token to endFrame().
+   */
+  public static Object beginFrame() {
+    return recording ? JfrEvents.beginFrame() : null;
+  }
+
+  /**
+   * Marks the end of the frame started by the beginFrame() call that returned the given token.
+   */
+  public static void endFrame(Object token) {
+    if (token != null) {
+      JfrEvents.endFrame(token);
+    }
+  }
+
+  /**
+   * Marks the start of a Display render. Pass the returned token to endDisplay().
+   */
+  public static Object beginDisplay() {
+    return recording ? JfrEvents.beginDisplay() : null;
+  }
+
+  /**
+   * Marks the end of the render of the named Display.
+   */
+  public static void endDisplay(Object token, String name) {
+    if (token != null) {
+      JfrEvents.endDisplay(token, name);
+    }
+  }
+
+  /**
+   * Records that a mission has changed state or moved to a new step.
+   */
+  public static void missionUpdate(String type, String state, int step) {
+    if (recording) {
+      JfrEvents.missionUpdate(type, state, step);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.walkertribe.artemisdisplay.metrics;
+
+import com.walkertribe.ian.iface.Listener;
+import com.walkertribe.ian.protocol.ArtemisPacket;
+import com.walkertribe.ian.world.ArtemisObject;
+import com.walkertribe.ian.world.ArtemisPlayer;
+import com.walkertribe.ian.world.WorldListener;
+
+/**
+ * Turns packets and World changes into FlightRecorder events. This is only registered with the
+ * ArtemisNetworkInterface and World while a recording is being made, so it costs nothing otherwise.
+ * @author rjwut
+ */
+public class FlightRecorderListener implements WorldListener {
+  /**
+   * A packet was received.
+   */
+  @Listener
+  public void onPacket(ArtemisPacket pkt) {
+    FlightRecorder.packetReceived(pkt.getClass().getSimpleName());
+  }
+
+  /**
+   * An object update was received.
+   */
+  @Listener
+  public void onObjectUpdate(ArtemisObject obj) {
+    worldObjectChange("update", obj);
+  }
+
+  @Override
+  public void onCreate(ArtemisObject obj) {
+    worldObjectChange("create", obj);
+  }
+
+  @Override
+  public void onPlayerSpawn(ArtemisPlayer player) {
+    // already reported by onCreate()
+  }
+
+  @Override
+  public void onDelete(ArtemisObject obj) {
+    worldObjectChange("delete", obj);
+  }
+
+  private static void worldObjectChange(String change, ArtemisObject obj) {
+    FlightRecorder.worldObjectChange(change, String.valueOf(obj.getType()), obj.getId());
+  }
+}
@@ -0,0 +1,182 @@
+package com.walkertribe.artemisdisplay.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+
+/**
+ * The Java Flight Recorder event types, and the code that creates them. This is the only class that
+ * refers to the jdk.jfr package, and it's only loaded once FlightRecorder has confirmed that JFR is
+ * available, so the application still runs on JVMs that don't have it.
+ * @author rjwut
+ */
+final class JfrEvents {
+  private static final String CATEGORY = "Artemis Display";
+  private static final String PREFIX = "com.walkertribe.artemisdisplay.";
+
+  private static Recording recording;
+
+  private JfrEvents() { }
+
+  /**
+   * Starts a recording using the JVM's default settings plus all the events in this class. The
+   * recording is written to the given file when it's stopped or the JVM exits.
+   */
+  static void start(File file) throws IOException {
+    try {
+      recording = new Recording(jdk.jfr.Configuration.getConfiguration("default"));
+    } catch (ParseException ex) {
+      throw new IOException(ex);
+    }
+
+    recording.setName("Artemis Display");
+    recording.setDestination(file.toPath());
+    recording.setDumpOnExit(true);
+    // Stack traces aren't useful for the high-volume events, and would make them a lot more costly
+    recording.enable(PacketReceived.class).withoutStackTrace();
+    recording.enable(PacketWire.class).withoutStackTrace();
+    recording.enable(WorldObjectChange.class).withoutStackTrace();
+    recording.enable(FrameRender.class).withoutThreshold().withoutStackTrace();
+    recording.enable(DisplayRender.class).withoutThreshold().withoutStackTrace();
+    recording.enable(MissionUpdate.class);
+    recording.start();
+  }
+
+  /**
+   * Stops the recording, which writes it to its file.
+   */
+  static void stop() {
+    if (recording != null) {
+      recording.stop();
+      recording.close();
+      recording = null;
+    }
+  }
+
+  static void packetReceived(String type) {
+    PacketReceived event = new PacketReceived();
+    event.type = type;
+    event.commit();
+  }
+
+  static void packetWire(String source, int type, int size) {
+    PacketWire event = new PacketWire();
+    event.source = source;
+    event.type = String.format("0x%08x", type);
+    event.size = size;
+    event.commit();
+  }
+
+  static void worldObjectChange(String change, String type, int id) {
+    WorldObjectChange event = new WorldObjectChange();
+    event.change = change;
+    event.objectType = type;
+    event.objectId = id;
+    event.commit();
+  }
+
+  static Object beginFrame() {
+    FrameRender event = new FrameRender();
+    event.begin();
+    return event;
+  }
+
+  static void endFrame(Object token) {
+    ((FrameRender) token).commit();
+  }
+
+  static Object beginDisplay() {
+    DisplayRender event = new DisplayRender();
+    event.begin();
+    return event;
+  }
+
+  static void endDisplay(Object token, String name) {
+    DisplayRender event = (DisplayRender) token;
+    event.display = name;
+    event.commit();
+  }
+
+  static void missionUpdate(String type, String state, int step) {
+    MissionUpdate event = new MissionUpdate();
+    event.missionType = type;
+    event.state = state;
+    event.step = step;
+    event.commit();
+  }
+
+  @Name(PREFIX + "PacketReceived")
+  @Label("Packet Received")
+  @Category({ CATEGORY, "Network" })
+  @Description("A packet was parsed and handed to the listeners")
+  static class PacketReceived extends Event {
+    @Label("Packet Type")
+    String type;
+  }
+
+  @Name(PREFIX + "PacketWire")
+  @Label("Packet On Wire")
+  @Category({ CATEGORY, "Network" })
+  @Description("A raw packet passed through the recorder or was sent by the replay server")
+  static class PacketWire extends Event {
+    @Label("Source")
+    String source;
+
+    @Label("Packet Type")
+    String type;
+
+    @Label("Size")
+    @DataAmount
+    int size;
+  }
+
+  @Name(PREFIX + "WorldObjectChange")
+  @Label("World Object Change")
+  @Category({ CATEGORY, "World" })
+  static class WorldObjectChange extends Event {
+    @Label("Change")
+    String change;
+
+    @Label("Object Type")
+    String objectType;
+
+    @Label("Object ID")
+    int objectId;
+  }
+
+  @Name(PREFIX + "FrameRender")
+  @Label("Frame Render")
+  @Category({ CATEGORY, "Rendering" })
+  static class FrameRender extends Event {
+  }
+
+  @Name(PREFIX + "DisplayRender")
+  @Label("Display Render")
+  @Category({ CATEGORY, "Rendering" })
+  static class DisplayRender extends Event {
+    @Label("Display")
+    String display;
+  }
+
+  @Name(PREFIX + "MissionUpdate")
+  @Label("Mission Update")
+  @Category({ CATEGORY, "Missions" })
+  static class MissionUpdate extends Event {
+    @Label("Mission Type")
+    String missionType;
+
+    @Label("State")
+    String state;
+
+    @Label("Step")
+    int step;
+  }
+}
@@ -0,0 +1,279 @@
+package com.walkertribe.artemisdisplay.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.walkertribe.ian.enums.ObjectType;
+import com.walkertribe.ian.world.ArtemisObject;
+import com.walkertribe.ian.world.World;
+
+/**
+ * <p>
+ * A small HTTP server, bound to the loopback interface, which publishes the display's render
+ * statistics, packet counts, World object counts, cache hit rates, and heap usage. Two endpoints
+ * are available:
+ * </p>
+ * <ul>
+ * <li>/metrics: Prometheus text exposition format</li>
+ * <li>/metrics.json: the same data as a JSON object</li>
+ * </ul>
+ * @author rjwut
+ */
+public class MetricsServer {
+  private static final String PREFIX = "artemis_display_";
+  private static final double[] QUANTILES = { 0.5, 0.95, 0.99 };
+
+  private RenderStats renderStats;
+  private PacketCounter packetCounter;
+  private World world;
+  private HttpServer server;
+
+  /**
+   * Creates a MetricsServer that will publish data from the given sources.
+   */
+  public MetricsServer(RenderStats renderStats, PacketCounter packetCounter, World world) {
+    this.renderStats = renderStats;
+    this.packetCounter = packetCounter;
+    this.world = world;
+  }
+
+  /**
+   * Starts listening on the given loopback port.
+   */
+  public void start(int port) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.createContext("/metrics", exchange -> {
+      if (exchange.getRequestURI().getPath().equals("/metrics.json")) {
+        send(exchange, "application/json", buildJson().toString(2));
+      } else {
+        send(exchange, "text/plain; version=0.0.4", buildPrometheus());
+      }
+    });
+    server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "MetricsServer");
+      thread.setDaemon(true);
+      return thread;
+    }));
+    server.start();
+  }
+
+  /**
+   * Stops the server.
+   */
+  public void stop() {
+    if (server != null) {
+      server.stop(0);
+      server = null;
+    }
+  }
+
+  /**
+   * Writes the response.
+   */
+  private static void send(HttpExchange exchange, String contentType, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+    exchange.sendResponseHeaders(200, bytes.length);
+
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Returns the metrics in Prometheus text format.
+   */
+  private String buildPrometheus() {
+    StringBuilder b = new StringBuilder();
+    header(b, "fps", "gauge", "Frames rendered per second over the last interval");
+    sample(b, "fps", null, renderStats.getFps());
+    header(b, "frame_time_seconds", "gauge", "Frame render time percentiles over the last interval");
+    RenderTimer.Snapshot frame = renderStats.getFrameSnapshot();
+
+    for (double quantile : QUANTILES) {
+      sample(b, "frame_time_seconds", "quantile=\"" + quantile + "\"", seconds(frame, quantile));
+    }
+
+    sample(b, "frame_time_seconds", "quantile=\"1.0\"", frame.getMax() / 1e6);
+    header(b, "display_render_seconds", "gauge", "Display render time percentiles over the last interval");
+
+    for (RenderTimer.Snapshot snapshot : renderStats.getSnapshots()) {
+      String display = "display=\"" + escape(snapshot.getName()) + "\"";
+
+      for (double quantile : QUANTILES) {
+        sample(b, "display_render_seconds", display + ",quantile=\"" + quantile + "\"", seconds(snapshot, quantile));
+      }
+
+      sample(b, "display_render_seconds", display + ",quantile=\"1.0\"", snapshot.getMax() / 1e6);
+    }
+
+    header(b, "packets_total", "counter", "Packets received from the server, by type");
+
+    for (Map.Entry<String, Long> entry : packetCounter.getCounts().entrySet()) {
+      sample(b, "packets_total", "type=\"" + entry.getKey() + "\"", entry.getValue());
+    }
+
+    header(b, "packets_per_second", "gauge", "Packets received per second, by type");
+
+    for (Map.Entry<String, Double> entry : packetCounter.getRates().entrySet()) {
+      sample(b, "packets_per_second", "type=\"" + entry.getKey() + "\"", entry.getValue());
+    }
+
+    header(b, "world_objects", "gauge", "Objects in the World, by type");
+
+    for (Map.Entry<ObjectType, Integer> entry : countObjects().entrySet()) {
+      sample(b, "world_objects", "type=\"" + entry.getKey().name().toLowerCase() + "\"", entry.getValue());
+    }
+
+    header(b, "cache_hits_total", "counter", "Cache hits");
+
+    for (CacheStats cache : CacheStats.all()) {
+      sample(b, "cache_hits_total", "cache=\"" + escape(cache.getName()) + "\"", cache.getHits());
+    }
+
+    header(b, "cache_misses_total", "counter", "Cache misses");
+
+    for (CacheStats cache : CacheStats.all()) {
+      sample(b, "cache_misses_total", "cache=\"" + escape(cache.getName()) + "\"", cache.getMisses());
+    }
+
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    header(b, "heap_used_bytes", "gauge", "Heap memory in use");
+    sample(b, "heap_used_bytes", null, heap.getUsed());
+    header(b, "heap_committed_bytes", "gauge", "Heap memory committed");
+    sample(b, "heap_committed_bytes", null, heap.getCommitted());
+    header(b, "heap_max_bytes", "gauge", "Maximum heap memory");
+    sample(b, "heap_max_bytes", null, heap.getMax());
+    return b.toString();
+  }
+
+  /**
+   * Returns the metrics as a JSONObject.
+   */
+  private JSONObject buildJson() {
+    JSONObject root = new JSONObject();
+    root.put("fps", renderStats.getFps());
+    root.put("frame", toJson(renderStats.getFrameSnapshot()));
+    JSONArray displays = new JSONArray();
+
+    for (RenderTimer.Snapshot snapshot : renderStats.getSnapshots()) {
+      displays.put(toJson(snapshot));
+    }
+
+    root.put("displays", displays);
+    JSONObject packets = new JSONObject();
+    Map<String, Double> rates = packetCounter.getRates();
+
+    for (Map.Entry<String, Long> entry : packetCounter.getCounts().entrySet()) {
+      JSONObject obj = new JSONObject();
+      obj.put("total", entry.getValue());
+      obj.put("perSecond", rates.getOrDefault(entry.getKey(), 0.0));
+      packets.put(entry.getKey(), obj);
+    }
+
+    root.put("packets", packets);
+    JSONObject objects = new JSONObject();
+    countObjects().forEach((type, count) -> objects.put(type.name(), count));
+    root.put("worldObjects", objects);
+    JSONArray caches = new JSONArray();
+
+    for (CacheStats cache : CacheStats.all()) {
+      JSONObject obj = new JSONObject();
+      obj.put("name", cache.getName());
+      obj.put("hits", cache.getHits());
+      obj.put("misses", cache.getMisses());
+      obj.put("hitRate", cache.getHitRate());
+      caches.put(obj);
+    }
+
+    root.put("caches", caches);
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    JSONObject heapObj = new JSONObject();
+    heapObj.put("used", heap.getUsed());
+    heapObj.put("committed", heap.getCommitted());
+    heapObj.put("max", heap.getMax());
+    root.put("heap", heapObj);
+    return root;
+  }
+
+  /**
+   * Converts a RenderTimer.Snapshot to a JSONObject. Times are in microseconds.
+   */
+  private static JSONObject toJson(RenderTimer.Snapshot snapshot) {
+    JSONObject obj = new JSONObject();
+    obj.put("name", snapshot.getName());
+    obj.put("count", snapshot.getCount());
+    obj.put("meanUs", snapshot.getMean());
+    obj.put("p50Us", snapshot.getP50());
+    obj.put("p95Us", snapshot.getP95());
+    obj.put("p99Us", snapshot.getP99());
+    obj.put("maxUs", snapshot.getMax());
+    return obj;
+  }
+
+  /**
+   * Counts the objects in the World by type.
+   */
+  private Map<ObjectType, Integer> countObjects() {
+    Map<ObjectType, Integer> counts = new EnumMap<>(ObjectType.class);
+
+    for (ArtemisObject obj : world) {
+      counts.merge(obj.getType(), 1, Integer::sum);
+    }
+
+    return counts;
+  }
+
+  /**
+   * Returns the snapshot's value for one of the QUANTILES, in seconds.
+   */
+  private static double seconds(RenderTimer.Snapshot snapshot, double quantile) {
+    long us = quantile == 0.5 ? snapshot.getP50() : quantile == 0.95 ? snapshot.getP95() : snapshot.getP99();
+    return us / 1e6;
+  }
+
+  private static void header(StringBuilder b, String name, String type, String help) {
+    b.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+    b.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void sample(StringBuilder b, String name, String labels, double value) {
+    b.append(PREFIX).append(name);
+
+    if (labels != null) {
+      b.append('{').append(labels).append('}');
+    }
+
+    b.append(' ').append(value).append('\n');
+  }
+
+  private static void sample(StringBuilder b, String name, String labels, long value) {
+    b.append(PREFIX).append(name);
+
+    if (labels != null) {
+      b.append('{').append(labels).append('}');
+    }
+
+    b.append(' ').append(value).append('\n');
+  }
+
+  /**
+   * Escapes a Prometheus label value.
+   */
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
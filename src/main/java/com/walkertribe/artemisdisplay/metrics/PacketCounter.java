@@ -0,0 +1,64 @@
+package com.walkertribe.artemisdisplay.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.walkertribe.ian.iface.Listener;
+import com.walkertribe.ian.protocol.ArtemisPacket;
+
+/**
+ * Counts the packets received from the server, by packet class.
+ * @author rjwut
+ */
+public class PacketCounter {
+  private static final long MIN_RATE_INTERVAL_MS = 1000;
+
+  private Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+  private Map<String, Long> lastCounts = new TreeMap<>();
+  private Map<String, Double> rates = new TreeMap<>();
+  private long lastRateTime = System.currentTimeMillis();
+
+  /**
+   * A packet was received.
+   */
+  @Listener
+  public void onPacket(ArtemisPacket pkt) {
+    counts.computeIfAbsent(pkt.getClass().getSimpleName(), key -> new LongAdder()).increment();
+  }
+
+  /**
+   * Returns the total number of packets received for each packet type.
+   */
+  public Map<String, Long> getCounts() {
+    Map<String, Long> map = new TreeMap<>();
+    counts.forEach((type, count) -> map.put(type, count.sum()));
+    return map;
+  }
+
+  /**
+   * Returns the packets per second for each packet type, averaged over the time since the rates
+   * were last computed. The rates are recomputed if at least a second has passed; otherwise the
+   * previous rates are returned.
+   */
+  public synchronized Map<String, Double> getRates() {
+    long now = System.currentTimeMillis();
+    long elapsed = now - lastRateTime;
+
+    if (elapsed >= MIN_RATE_INTERVAL_MS) {
+      Map<String, Long> current = getCounts();
+      rates = new TreeMap<>();
+
+      for (Map.Entry<String, Long> entry : current.entrySet()) {
+        long last = lastCounts.getOrDefault(entry.getKey(), 0L);
+        rates.put(entry.getKey(), (entry.getValue() - last) * 1000.0 / elapsed);
+      }
+
+      lastCounts = current;
+      lastRateTime = now;
+    }
+
+    return rates;
+  }
+}
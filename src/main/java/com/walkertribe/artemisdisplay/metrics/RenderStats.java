@@ -0,0 +1,159 @@
+package com.walkertribe.artemisdisplay.metrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the RenderTimers for the whole frame and for each Display. Once per interval, the timers
+ * are snapshotted; the latest snapshots are available for the statistics overlay, and if a CSV
+ * file was given, they are appended to it, one row per timer.
+ * @author rjwut
+ */
+public class RenderStats {
+  private static final long INTERVAL_MS = 1000;
+  private static final String FRAME_TIMER_NAME = "frame";
+
+  private RenderTimer frameTimer = new RenderTimer(FRAME_TIMER_NAME, false);
+  private List<RenderTimer> timers = new CopyOnWriteArrayList<>();
+  private long intervalStart = System.currentTimeMillis();
+  private volatile RenderTimer.Snapshot frameSnapshot;
+  private volatile List<RenderTimer.Snapshot> snapshots = Collections.emptyList();
+  private volatile float fps;
+  private PrintWriter csv;
+
+  /**
+   * Creates a RenderStats object which doesn't write a CSV file.
+   */
+  public RenderStats() {
+    frameSnapshot = frameTimer.snapshot();
+  }
+
+  /**
+   * Creates a RenderStats object which appends the statistics to the given CSV file each interval.
+   * If csvFile is null, no file is written.
+   */
+  public RenderStats(File csvFile) {
+    this();
+
+    if (csvFile == null) {
+      return;
+    }
+
+    try {
+      boolean exists = csvFile.exists() && csvFile.length() != 0;
+      csv = new PrintWriter(new FileWriter(csvFile, true));
+
+      if (!exists) {
+        csv.println("timestamp_ms,name,count,mean_us,p50_us,p95_us,p99_us,max_us");
+        csv.flush();
+      }
+    } catch (IOException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  /**
+   * Creates and returns a new RenderTimer with the given name. Set layout to true if the timer
+   * measures a Layout, since its times will include those of its children.
+   */
+  public RenderTimer register(String name, boolean layout) {
+    RenderTimer timer = new RenderTimer(name, layout);
+    timers.add(timer);
+    return timer;
+  }
+
+  /**
+   * Returns the RenderTimer that measures entire frames.
+   */
+  public RenderTimer getFrameTimer() {
+    return frameTimer;
+  }
+
+  /**
+   * Invoked after each frame. If the current interval is over, this takes new snapshots of all the
+   * timers, writes them to the CSV file, and returns true.
+   */
+  public boolean update(long now) {
+    long elapsed = now - intervalStart;
+
+    if (elapsed < INTERVAL_MS) {
+      return false;
+    }
+
+    intervalStart = now;
+    frameSnapshot = frameTimer.snapshot();
+    fps = frameSnapshot.getCount() * 1000f / elapsed;
+    List<RenderTimer.Snapshot> list = new ArrayList<>(timers.size());
+
+    for (RenderTimer timer : timers) {
+      RenderTimer.Snapshot snapshot = timer.snapshot();
+
+      if (snapshot.getCount() != 0) {
+        list.add(snapshot);
+      }
+    }
+
+    list.sort(Comparator.comparingLong(RenderTimer.Snapshot::getP95).reversed());
+    snapshots = Collections.unmodifiableList(list);
+
+    if (csv != null) {
+      writeRow(now, frameSnapshot);
+
+      for (RenderTimer.Snapshot snapshot : list) {
+        writeRow(now, snapshot);
+      }
+
+      csv.flush();
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns the frames per second over the last interval.
+   */
+  public float getFps() {
+    return fps;
+  }
+
+  /**
+   * Returns the frame time statistics for the last interval.
+   */
+  public RenderTimer.Snapshot getFrameSnapshot() {
+    return frameSnapshot;
+  }
+
+  /**
+   * Returns the statistics for each Display that rendered during the last interval, slowest (by
+   * 95th percentile) first.
+   */
+  public List<RenderTimer.Snapshot> getSnapshots() {
+    return snapshots;
+  }
+
+  /**
+   * Closes the CSV file, if any.
+   */
+  public void close() {
+    if (csv != null) {
+      csv.close();
+      csv = null;
+    }
+  }
+
+  /**
+   * Writes a CSV row for the given snapshot.
+   */
+  private void writeRow(long now, RenderTimer.Snapshot snapshot) {
+    String name = snapshot.getName().replace("\"", "\"\"");
+    csv.println(now + ",\"" + name + "\"," + snapshot.getCount() + "," + snapshot.getMean() + "," +
+        snapshot.getP50() + "," + snapshot.getP95() + "," + snapshot.getP99() + "," + snapshot.getMax());
+  }
+}
@@ -0,0 +1,193 @@
+package com.walkertribe.artemisdisplay.metrics;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Collects render times for one Display (or for the whole frame) into a histogram. Times are kept
+ * in microseconds in logarithmic buckets: each power of two is divided into 16 sub-buckets, so a
+ * reported percentile is never more than about 6% below the true value. Recording a time is just
+ * an array increment, so it's cheap enough to do on every frame.
+ * </p>
+ * <p>
+ * Times accumulate until snapshot() is invoked, which returns the statistics for the interval and
+ * starts a new one.
+ * </p>
+ * @author rjwut
+ */
+public class RenderTimer {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 30; // ~18 minutes; nothing should take that long
+  private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  /**
+   * Returns the index of the bucket for the given number of microseconds.
+   */
+  private static int bucketFor(long us) {
+    if (us < SUB_BUCKETS) {
+      return (int) Math.max(us, 0);
+    }
+
+    int exponent = Math.min(63 - Long.numberOfLeadingZeros(us), MAX_EXPONENT);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int subBucket = (int) Math.min((us >>> shift) - SUB_BUCKETS, SUB_BUCKETS - 1);
+    return (shift + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Returns the smallest number of microseconds that falls in the given bucket.
+   */
+  private static long lowerBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+
+    int shift = bucket / SUB_BUCKETS - 1;
+    return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+  }
+
+  private String name;
+  private boolean layout;
+  private long[] buckets = new long[BUCKET_COUNT];
+  private long count;
+  private long totalUs;
+  private long maxUs;
+
+  /**
+   * Creates a RenderTimer with the given name. If layout is true, the times recorded by this timer
+   * include the times of child Displays.
+   */
+  RenderTimer(String name, boolean layout) {
+    this.name = name;
+    this.layout = layout;
+  }
+
+  /**
+   * Returns the name shown for this timer in the statistics.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Changes the name shown for this timer in the statistics.
+   */
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Returns true if this timer measures a Layout, whose times include those of its children.
+   */
+  public boolean isLayout() {
+    return layout;
+  }
+
+  /**
+   * Records a render that took the given number of nanoseconds.
+   */
+  public synchronized void record(long nanos) {
+    long us = nanos / 1000;
+    buckets[bucketFor(us)]++;
+    count++;
+    totalUs += us;
+    maxUs = Math.max(maxUs, us);
+  }
+
+  /**
+   * Returns the statistics for the renders recorded since the last snapshot, then clears them.
+   */
+  public synchronized Snapshot snapshot() {
+    Snapshot snapshot = new Snapshot(name, layout, count, count != 0 ? totalUs / count : 0,
+        percentile(0.5), percentile(0.95), percentile(0.99), maxUs);
+
+    if (count != 0) {
+      Arrays.fill(buckets, 0);
+      count = 0;
+      totalUs = 0;
+      maxUs = 0;
+    }
+
+    return snapshot;
+  }
+
+  /**
+   * Returns the approximate time in microseconds at the given percentile.
+   */
+  private long percentile(double p) {
+    if (count == 0) {
+      return 0;
+    }
+
+    long target = (long) Math.ceil(p * count);
+    long seen = 0;
+
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += buckets[i];
+
+      if (seen >= target) {
+        return Math.min(lowerBound(i), maxUs);
+      }
+    }
+
+    return maxUs;
+  }
+
+  /**
+   * The statistics for one RenderTimer over one interval. All times are in microseconds.
+   */
+  public static class Snapshot {
+    private String name;
+    private boolean layout;
+    private long count;
+    private long mean;
+    private long p50;
+    private long p95;
+    private long p99;
+    private long max;
+
+    private Snapshot(String name, boolean layout, long count, long mean, long p50, long p95, long p99, long max) {
+      this.name = name;
+      this.layout = layout;
+      this.count = count;
+      this.mean = mean;
+      this.p50 = p50;
+      this.p95 = p95;
+      this.p99 = p99;
+      this.max = max;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public boolean isLayout() {
+      return layout;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getMean() {
+      return mean;
+    }
+
+    public long getP50() {
+      return p50;
+    }
+
+    public long getP95() {
+      return p95;
+    }
+
+    public long getP99() {
+      return p99;
+    }
+
+    public long getMax() {
+      return max;
+    }
+  }
+}
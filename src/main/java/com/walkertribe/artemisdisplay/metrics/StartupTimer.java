@@ -0,0 +1,60 @@
+package com.walkertribe.artemisdisplay.metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records how long each phase of startup took. Phases are marked as they end, from any thread;
+ * each one's duration is the time since the previous mark. The report also includes the time the
+ * JVM took to reach main(), which is found out only when the report is printed, since the
+ * management API is too expensive to load earlier.
+ * @author rjwut
+ */
+public class StartupTimer {
+  private static final long ORIGIN = System.nanoTime();
+  private static final List<String> PHASES = new ArrayList<>();
+  private static final List<Long> TIMES = new ArrayList<>();
+  private static boolean reported;
+
+  /**
+   * Starts the timer. This should be the first thing main() does.
+   */
+  public static void start() {
+    // Loading the class records the origin
+  }
+
+  /**
+   * Records that the named phase has ended now.
+   */
+  public static synchronized void mark(String phase) {
+    PHASES.add(phase);
+    TIMES.add(System.nanoTime());
+  }
+
+  /**
+   * Prints a report of the phases marked so far to the given stream. Only the first call prints
+   * anything.
+   */
+  public static synchronized void report(PrintStream out) {
+    if (reported) {
+      return;
+    }
+
+    reported = true;
+    long now = System.nanoTime();
+    long jvmMs = ManagementFactory.getRuntimeMXBean().getUptime() - (now - ORIGIN) / 1000000;
+    out.println("Startup report:");
+    out.printf("  %-24s%8d ms%n", "JVM start", jvmMs);
+    long last = ORIGIN;
+
+    for (int i = 0; i < PHASES.size(); i++) {
+      long time = TIMES.get(i);
+      out.printf("  %-24s%8d ms%n", PHASES.get(i), (time - last) / 1000000);
+      last = time;
+    }
+
+    out.printf("  %-24s%8d ms%n", "Total", jvmMs + (last - ORIGIN) / 1000000);
+  }
+}
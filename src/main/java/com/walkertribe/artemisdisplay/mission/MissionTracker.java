@@ -6,6 +6,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import com.walkertribe.artemisdisplay.metrics.FlightRecorder;
 import com.walkertribe.ian.protocol.core.comm.CommsIncomingPacket;
 import com.walkertribe.ian.protocol.core.world.DeleteObjectPacket;
 import com.walkertribe.ian.world.ArtemisObject;
@@ -138,6 +139,7 @@ public class MissionTracker implements Iterable<Mission> {
       contacts.put(contact.getId(), contact);
     }
 
+    FlightRecorder.missionUpdate(mission.getType().name(), mission.getState().name(), mission.getStepIndex());
     listeners.forEach(listener -> listener.update(mission));
   }
 
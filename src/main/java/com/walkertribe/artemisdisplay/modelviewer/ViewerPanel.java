@@ -110,7 +110,7 @@ class ViewerPanel extends JPanel {
     params.scale(entry.model.computeScale(size));
 
     if (entry.vessel != null) {
-      renderer.render(g2, entry.vessel, params, grid);
+      renderer.render(g2, entry.vessel, entry.model, params, grid);
     } else {
       renderer.render(g2, entry.model, params, null);
     }
@@ -0,0 +1,83 @@
+package com.walkertribe.artemisdisplay.render;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+import com.walkertribe.artemisdisplay.util.Trig;
+
+/**
+ * <p>
+ * A polygon that's drawn many times at different positions, headings and sizes, such as the
+ * arrows for ships on the maps. Its vertices are declared once with polar coordinates, as with
+ * PolygonBuilder, for a polygon with a radius of 1 pointing at angle zero. Each call to place()
+ * moves the vertices into position with an AffineTransform built from table-based sine and cosine,
+ * and refills the same Path2D, so drawing a shape doesn't allocate anything.
+ * </p>
+ * <p>
+ * An ArrowShape holds the last placement, so each renderer should have its own.
+ * </p>
+ * @author rjwut
+ */
+public class ArrowShape {
+  private double[] unit = new double[8];
+  private double[] placed = new double[8];
+  private int count;
+  private AffineTransform transform = new AffineTransform();
+  private Path2D.Double path = new Path2D.Double();
+
+  /**
+   * Adds a vertex with the given polar coordinates, relative to a radius of 1.
+   */
+  public ArrowShape add(double theta, double r) {
+    if (count * 2 == unit.length) {
+      unit = Arrays.copyOf(unit, unit.length * 2);
+      placed = new double[unit.length];
+    }
+
+    unit[count * 2] = Math.cos(theta) * r;
+    unit[count * 2 + 1] = -Math.sin(theta) * r;
+    count++;
+    return this;
+  }
+
+  /**
+   * Positions the shape with its center at (x, y), pointing at the given heading (in radians, using
+   * the same convention as PolygonBuilder), and scaled to the given radius.
+   */
+  public ArrowShape place(double x, double y, double heading, double r) {
+    double c = Trig.DEFAULT.cos(heading) * r;
+    double s = Trig.DEFAULT.sin(heading) * r;
+    transform.setTransform(c, -s, s, c, x, y);
+    transform.transform(unit, 0, placed, 0, count);
+    path.reset();
+    path.moveTo(placed[0], placed[1]);
+
+    for (int i = 1; i < count; i++) {
+      path.lineTo(placed[i * 2], placed[i * 2 + 1]);
+    }
+
+    path.closePath();
+    return this;
+  }
+
+  /**
+   * Returns the placed shape. The same Path2D is refilled by each call to place().
+   */
+  public Path2D.Double getPath() {
+    return path;
+  }
+
+  /**
+   * Copies the placed vertices into the given arrays, for use with the IntRasterizer. Returns the
+   * number of vertices.
+   */
+  public int getVertices(double[] xs, double[] ys) {
+    for (int i = 0; i < count; i++) {
+      xs[i] = placed[i * 2];
+      ys[i] = placed[i * 2 + 1];
+    }
+
+    return count;
+  }
+}
@@ -1,21 +1,22 @@
 package com.walkertribe.artemisdisplay.render;
 
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.OptionalDouble;
 import java.util.Set;
 import java.util.function.Consumer;
 
 import com.walkertribe.artemisdisplay.ArtemisDisplay;
 import com.walkertribe.artemisdisplay.Configuration;
+import com.walkertribe.artemisdisplay.HullTable;
+import com.walkertribe.artemisdisplay.SystemHealthTracker;
 import com.walkertribe.artemisdisplay.i18n.LocaleData;
-import com.walkertribe.ian.Context;
 import com.walkertribe.ian.enums.AnomalyType;
 import com.walkertribe.ian.enums.BeaconMode;
 import com.walkertribe.ian.enums.BeamFrequency;
@@ -27,7 +28,6 @@ import com.walkertribe.ian.enums.ShipSystem;
 import com.walkertribe.ian.enums.SpecialAbility;
 import com.walkertribe.ian.enums.TargetingMode;
 import com.walkertribe.ian.util.BoolState;
-import com.walkertribe.ian.util.GridNode;
 import com.walkertribe.ian.vesseldata.Faction;
 import com.walkertribe.ian.vesseldata.Vessel;
 import com.walkertribe.ian.world.ArtemisAnomaly;
@@ -41,8 +41,16 @@ import com.walkertribe.ian.world.ArtemisShielded;
 import com.walkertribe.ian.world.ArtemisTorpedo;
 
 /**
+ * <p>
  * A class that knows how to render a data sheet for each of the types of objects. These sheets
  * are used by ObjectDisplay.
+ * </p>
+ * <p>
+ * A DataSheet is kept for as long as its display exists. Its contents are rebuilt only when the
+ * target changes or the display reports that the target has been updated, reusing the entries
+ * from the last build; fonts and label positions are recomputed only when the bounds change or
+ * the entries' labels do.
+ * </p>
  */
 public class DataSheet {
   private static final float TITLE_FONT_RATIO = 0.1f;
@@ -147,12 +155,12 @@ public class DataSheet {
             npc.getShieldsRear(), npc.getShieldsRearMax()
         );
 
-        if (sheet.ctx != null) {
-          Set<SpecialAbility> abilities = npc.getSpecialAbilities(sheet.ctx);
+        if (sheet.hulls != null) {
+          Set<SpecialAbility> abilities = sheet.hulls.getSpecialAbilities(npc);
 
           if (abilities != null) {
             for (SpecialAbility ability : abilities) {
-              BoolState on = npc.isUsingSpecialAbility(ability, sheet.ctx);
+              BoolState on = sheet.hulls.isUsingSpecialAbility(npc, ability);
               String key = on.toValue("special.on", "special.off", "unknown_value");
               sheet.add(
                   sheet.localeData.string("target.data.special" + ability),
@@ -197,10 +205,9 @@ public class DataSheet {
       );
 
       if (sheet.player != null && sheet.player.getId() == target.getId()) {
-        Map<ShipSystem, List<GridNode>> sysMap = sheet.app.getGrid().groupNodesBySystem();
+        SystemHealthTracker systemHealth = sheet.app.getSystemHealth();
 
-        for (Map.Entry<ShipSystem, List<GridNode>> entry : sysMap.entrySet()) {
-          ShipSystem sys = entry.getKey();
+        for (ShipSystem sys : ShipSystem.values()) {
           String key;
 
           if (sys == ShipSystem.WARP_JUMP_DRIVE) {
@@ -210,10 +217,8 @@ public class DataSheet {
           }
 
           String label = sheet.localeData.string("systems." + key);
-          OptionalDouble damage = entry.getValue().stream()
-              .mapToDouble(node -> Math.max(node.getDamage(), 0))
-              .average();
-          float health = 1 - (float) damage.orElse(0);
+          float damage = systemHealth.getDamage(sys);
+          float health = Float.isNaN(damage) ? 1 : 1 - damage;
           sheet.systemMeters.addMeter(label, health, 1);
         }
       }
@@ -224,9 +229,8 @@ public class DataSheet {
           sheet.localeData.string("target.data.beams", beams)
       );
       sheet.add(sheet.localeData.string("target.data.energy"), target.getEnergy());
-      Vessel vessel = sheet.ctx != null ? target.getVessel(sheet.ctx) : null;
-      Faction faction = vessel != null ? vessel.getFaction() : null;
-      boolean jumpMaster = faction != null ? faction.is(FactionAttribute.JUMPMASTER) : false;
+      HullTable.Hull hull = sheet.hulls != null ? sheet.hulls.lookup(target) : null;
+      boolean jumpMaster = hull != null && hull.is(FactionAttribute.JUMPMASTER);
 
       if (jumpMaster) {
         float jumpCooldown = target.getEmergencyJumpCooldown();
@@ -258,8 +262,9 @@ public class DataSheet {
   }
 
   private ArtemisDisplay app;
-  private Context ctx;
+  private HullTable hulls;
   private LocaleData localeData;
+  private ObjectColorCache colors;
   private Graphics2D g;
   private FontMetrics metrics;
   private ArtemisPlayer player;
@@ -270,19 +275,68 @@ public class DataSheet {
   private MeterGroupEntry shieldMeters;
   private MeterGroupEntry freqMeters;
   private MeterGroupEntry systemMeters;
-  private List<SimpleEntry> data = new LinkedList<>();
-  private Color titleColor;
+  private List<SimpleEntry> data = new ArrayList<>();
+  private int dataCount;
+  private volatile boolean dirty = true;
+  private boolean layoutDirty = true;
+  private Rectangle layoutBounds = new Rectangle();
+  private Font titleFont;
+  private Font subtitleFont;
+  private Font dataFont;
+  private List<AbstractEntry> entries = new ArrayList<>();
+  private int labelEndX;
+  private int valueBeginX;
+  private int valueWidth;
   private float y;
 
-  public DataSheet(ArtemisDisplay app, Graphics2D g, ArtemisObject target, ArtemisPlayer player) {
+  /**
+   * Creates an empty DataSheet. Call update() to bind it to a target.
+   */
+  public DataSheet(ArtemisDisplay app) {
     this.app = app;
     Configuration config = app.getConfig();
-    ctx = config.getContext();
+    hulls = config.getHullTable();
     localeData = LocaleData.get();
-    this.g = g;
-    metrics = g.getFontMetrics();
-    this.player = player;
-    this.target = target;
+    colors = new ObjectColorCache(hulls, app.getWorld(), true);
+  }
+
+  /**
+   * Notes that the target's values have changed. This may be called from any thread; the sheet is
+   * rebuilt the next time update() is called.
+   */
+  public void invalidate() {
+    dirty = true;
+  }
+
+  /**
+   * Binds the sheet to the given target as seen by the given player ship, and rebuilds its contents
+   * if either has changed or the sheet has been invalidated since the last update.
+   */
+  public void update(ArtemisObject target, ArtemisPlayer player) {
+    if (target != this.target || player != this.player) {
+      this.target = target;
+      this.player = player;
+      dirty = true;
+      layoutDirty = true;
+      colors.clear();
+
+      if (target != null) {
+        createMeterGroups();
+      }
+    }
+
+    if (!dirty || target == null) {
+      return;
+    }
+
+    dirty = false;
+    rebuild();
+  }
+
+  /**
+   * Creates the meter groups for a new target.
+   */
+  private void createMeterGroups() {
     shieldMeters = new MeterGroupEntry(
         localeData.string("target.data." + (target instanceof ArtemisCreature ? "health" : "shields")),
         Meter.ColorScheme.GRADIATED
@@ -295,15 +349,26 @@ public class DataSheet {
         localeData.string("target.data.systems"),
         target instanceof ArtemisPlayer ? Meter.ColorScheme.GRADIATED : Meter.ColorScheme.GREEN_AT_FULL
     );
+  }
 
-    if (player != null) {
-      scanLevel = target.getScanLevel(player.getSide());
-    }
-
-    this.titleColor = Util.getObjectColor(ctx, app.getWorld(), target, player, true);
-
-    if (target != null) {
-      BUILDERS.get(target.getType()).accept(this);
+  /**
+   * Rebuilds the sheet's contents from the target. Entries are reused where possible; the layout
+   * is only recomputed if the set of labels changed.
+   */
+  private void rebuild() {
+    title = null;
+    subtitle = null;
+    shieldMeters.begin();
+    freqMeters.begin();
+    systemMeters.begin();
+    int oldDataCount = dataCount;
+    dataCount = 0;
+    scanLevel = player != null ? target.getScanLevel(player.getSide()) : 0;
+    BUILDERS.get(target.getType()).accept(this);
+    boolean changed = shieldMeters.end() | freqMeters.end() | systemMeters.end();
+
+    if (changed || dataCount != oldDataCount) {
+      layoutDirty = true;
     }
   }
 
@@ -311,47 +376,93 @@ public class DataSheet {
    * Adds a new entry to the sheet that displays a string value.
    */
   private void add(String label, Object value) {
-    data.add(new SimpleEntry(label, value != null ? value.toString() : "-?-"));
+    add(label, value != null ? value.toString() : "-?-", null);
   }
 
   /**
    * Adds a new entry to the sheet that displays an integer value.
    */
   public void add(String label, float value) {
-    data.add(new SimpleEntry(label, Float.isNaN(value) ? "-?-" : Integer.toString(Math.round(value))));
+    add(label, Float.isNaN(value) ? "-?-" : Integer.toString(Math.round(value)), null);
   }
 
   /**
-   * Adds a new entry to the sheet that displays a string value in a particular color.
+   * Adds a new entry to the sheet that displays a string value in a particular color. The entry in
+   * the same position is reused if it has the same label.
    */
   public void add(String label, String value, Color color) {
-    data.add(new SimpleEntry(label, value, color));
+    if (dataCount < data.size()) {
+      SimpleEntry entry = data.get(dataCount);
+
+      if (!entry.label.equals(label)) {
+        entry.label = label;
+        layoutDirty = true;
+      }
+
+      entry.value = value;
+      entry.valueColor = color;
+    } else {
+      data.add(new SimpleEntry(label, value, color));
+      layoutDirty = true;
+    }
+
+    dataCount++;
   }
 
   /**
    * Renders the data sheet within the given bounds.
    */
-  public void render(Rectangle bounds) {
+  public void render(Graphics2D g, Rectangle bounds) {
     if (target == null) {
       return;
     }
 
+    this.g = g;
+
+    if (layoutDirty || !bounds.equals(layoutBounds)) {
+      layout(bounds);
+    }
+
     y = bounds.y;
-    int height = bounds.height;
-    renderLine(height, TITLE_FONT_RATIO, baseline -> {
-      g.setColor(titleColor);
-      g.drawString(title, bounds.x, baseline);
-    });
+    g.setFont(titleFont);
+    metrics = g.getFontMetrics();
+    y += metrics.getAscent();
+    g.setColor(colors.get(target, player));
+    g.drawString(title, bounds.x, y);
+    y += metrics.getDescent();
 
     if (subtitle != null) {
-      renderLine(height, SUBTITLE_FONT_RATIO, baseline -> {
-        g.drawString(subtitle, bounds.x, baseline);
-      });
+      g.setFont(subtitleFont);
+      metrics = g.getFontMetrics();
+      y += metrics.getAscent();
+      g.drawString(subtitle, bounds.x, y);
+      y += metrics.getDescent();
     }
 
-    renderLine(height, DATA_FONT_RATIO, baseline -> {});
+    g.setFont(dataFont);
     metrics = g.getFontMetrics();
-    List<AbstractEntry> entries = new LinkedList<>();
+    y += metrics.getAscent() + metrics.getDescent();
+
+    for (AbstractEntry entry : entries) {
+      entry.render(labelEndX, valueBeginX, valueWidth);
+    }
+
+    this.g = null;
+  }
+
+  /**
+   * Derives the fonts for the given bounds and works out which entries to show and where the
+   * labels and values go.
+   */
+  private void layout(Rectangle bounds) {
+    layoutBounds.setBounds(bounds);
+    layoutDirty = false;
+    int height = bounds.height;
+    titleFont = localeData.getFont(height * TITLE_FONT_RATIO);
+    subtitleFont = localeData.getFont(height * SUBTITLE_FONT_RATIO);
+    dataFont = localeData.getFont(height * DATA_FONT_RATIO);
+    metrics = g.getFontMetrics(dataFont);
+    entries.clear();
 
     if (!shieldMeters.isEmpty()) {
       entries.add(shieldMeters);
@@ -365,38 +476,24 @@ public class DataSheet {
       entries.add(systemMeters);
     }
 
-    entries.addAll(data);
+    entries.addAll(data.subList(0, dataCount));
     int labelWidth = 0;
 
     for (AbstractEntry entry : entries) {
-      labelWidth = Math.max(labelWidth, entry.getLabelWidth());
+      entry.labelWidth = metrics.stringWidth(entry.label);
+      labelWidth = Math.max(labelWidth, entry.labelWidth);
     }
 
-    int labelEndX = bounds.x + labelWidth;
-    int valueBeginX = labelEndX + Math.round(bounds.height * DATA_FONT_RATIO);
-    int valueWidth = (int) (bounds.getMaxX() - valueBeginX);
-
-    for (AbstractEntry entry : entries) {
-      entry.render(labelEndX, valueBeginX, valueWidth);
-    }
-  }
-
-  /**
-   * Renders a single line in the data sheet.
-   */
-  private void renderLine(int height, float fontRatio, Consumer<Float> renderer) {
-    g.setFont(localeData.getFont(height * fontRatio));
-    metrics = g.getFontMetrics();
-    y += metrics.getAscent();
-    renderer.accept(y);
-    y += metrics.getDescent();
+    labelEndX = bounds.x + labelWidth;
+    valueBeginX = labelEndX + Math.round(bounds.height * DATA_FONT_RATIO);
+    valueWidth = (int) (bounds.getMaxX() - valueBeginX);
   }
 
   /**
    * Determines the vessel type.
    */
   private String getVesselType() {
-    if (ctx == null) {
+    if (hulls == null) {
       return "";
     }
 
@@ -404,8 +501,12 @@ public class DataSheet {
     Faction faction = null;
 
     if (target instanceof ArtemisShielded) {
-      vessel = ((ArtemisShielded) target).getVessel(ctx);
-      faction = vessel != null ? vessel.getFaction() : null;
+      HullTable.Hull hull = hulls.lookup((ArtemisShielded) target);
+
+      if (hull != null) {
+        vessel = hull.getVessel();
+        faction = hull.getFaction();
+      }
     }
 
     if (faction == null || vessel == null) {
@@ -419,24 +520,18 @@ public class DataSheet {
    * An entry is a single row in the data sheet.
    */
   private abstract class AbstractEntry {
-    private String label;
+    protected String label;
+    private int labelWidth;
 
     protected AbstractEntry(String label) {
       this.label = label;
     }
 
-    /**
-     * Returns the width of this entry's label.
-     */
-    private int getLabelWidth() {
-      return DataSheet.this.metrics.stringWidth(label);
-    }
-
     /**
      * Renders this entry.
      */
     private void render(int labelEndX, int valueBeginX, int valueWidth) {
-      float labelBeginX = labelEndX - getLabelWidth();
+      float labelBeginX = labelEndX - labelWidth;
       DataSheet.this.g.setColor(LABEL_COLOR);
       DataSheet.this.g.drawString(label, labelBeginX, y + DataSheet.this.metrics.getAscent());
       renderValue(valueBeginX, valueWidth);
@@ -450,9 +545,13 @@ public class DataSheet {
 
   /**
    * A row in the data sheet that renders a group of meters that all use the same color scheme.
+   * Like the simple entries, the meters are reused from one rebuild to the next.
    */
   private class MeterGroupEntry extends AbstractEntry {
-    private List<MeterData> meterData = new LinkedList<>();
+    private List<MeterData> meterData = new ArrayList<>();
+    private int count;
+    private int oldCount;
+    private boolean labelsChanged;
     private Meter.ColorScheme scheme;
 
     private MeterGroupEntry(String label, Meter.ColorScheme scheme) {
@@ -461,17 +560,44 @@ public class DataSheet {
     }
 
     /**
-     * Adds a meter to the group.
+     * Starts refilling the group.
+     */
+    private void begin() {
+      oldCount = count;
+      count = 0;
+      labelsChanged = false;
+    }
+
+    /**
+     * Adds a meter to the group, or updates the one in the same position.
      */
     private void addMeter(String label, float value, float max) {
-      meterData.add(new MeterData(label, value, max));
+      if (count < meterData.size()) {
+        MeterData meter = meterData.get(count);
+        labelsChanged |= !meter.label.equals(label);
+        meter.label = label;
+        meter.value = value;
+        meter.max = max;
+      } else {
+        meterData.add(new MeterData(label, value, max));
+        labelsChanged = true;
+      }
+
+      count++;
+    }
+
+    /**
+     * Finishes refilling the group. Returns true if the layout needs to change.
+     */
+    private boolean end() {
+      return labelsChanged || count != oldCount;
     }
 
     /**
      * Returns whether there are any meters in this group.
      */
     private boolean isEmpty() {
-      return meterData.isEmpty();
+      return count == 0;
     }
 
     /**
@@ -481,7 +607,8 @@ public class DataSheet {
       int lineHeight = metrics.getHeight();
       MeterBank bank = new MeterBank(g);
 
-      for (MeterData meter : meterData) {
+      for (int i = 0; i < count; i++) {
+        MeterData meter = meterData.get(i);
         Rectangle meterBounds = new Rectangle(
             x,
             (int) y,
@@ -519,13 +646,9 @@ public class DataSheet {
     private String value;
     private Color valueColor;
 
-    private SimpleEntry(String label, String value) {
+    private SimpleEntry(String label, String value, Color valueColor) {
       super(label);
       this.value = value;
-    }
-
-    private SimpleEntry(String label, String value, Color valueColor) {
-      this(label, value);
       this.valueColor = valueColor;
     }
 
@@ -0,0 +1,250 @@
+package com.walkertribe.artemisdisplay.render;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A minimal software rasterizer that writes directly into the int pixel array of an opaque
+ * BufferedImage. It can draw circle outlines (midpoint) and filled circles and polygons (scanline
+ * spans), with no antialiasing. On machines where Java2D has no hardware pipeline, these are much
+ * cheaper than filling Shapes through a Graphics2D.
+ * </p>
+ * <p>
+ * To use it, call begin() with the Graphics2D context you would otherwise draw on. It sizes the
+ * image to the context's clip bounds, clears it to black, and returns a Graphics2D for the image
+ * that uses the same coordinate space as the original context. Anything the rasterizer can't
+ * draw (text, Models, stroked arcs) can be drawn on that context instead; both write to the same
+ * pixels, so they can be freely interleaved. When finished, call end() to draw the image onto the
+ * original context.
+ * </p>
+ * @author rjwut
+ */
+public class IntRasterizer {
+  private BufferedImage image;
+  private int[] pixels;
+  private int width;
+  private int height;
+  private int originX;
+  private int originY;
+  private Graphics2D imageGraphics;
+  private int rgb;
+  private int alpha;
+  private double[] crossings = new double[8];
+
+  /**
+   * Prepares the image to cover the clip bounds of the given context and clears it to black.
+   * Returns a Graphics2D context for the image, translated so that it uses the same coordinates as
+   * the given context, and with the same font, color and rendering hints.
+   */
+  public Graphics2D begin(Graphics2D g) {
+    Rectangle bounds = g.getClipBounds();
+
+    if (image == null || width != bounds.width || height != bounds.height) {
+      width = Math.max(bounds.width, 1);
+      height = Math.max(bounds.height, 1);
+      image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    } else {
+      Arrays.fill(pixels, 0);
+    }
+
+    originX = bounds.x;
+    originY = bounds.y;
+    imageGraphics = image.createGraphics();
+    imageGraphics.setRenderingHints(g.getRenderingHints());
+    imageGraphics.setFont(g.getFont());
+    imageGraphics.setColor(g.getColor());
+    imageGraphics.setStroke(g.getStroke());
+    imageGraphics.translate(-originX, -originY);
+    imageGraphics.setClip(bounds);
+    return imageGraphics;
+  }
+
+  /**
+   * Draws the finished image onto the given context, which should be the same one passed to
+   * begin().
+   */
+  public void end(Graphics2D g) {
+    imageGraphics.dispose();
+    imageGraphics = null;
+    g.drawImage(image, originX, originY, null);
+  }
+
+  /**
+   * Sets the color for subsequent drawing operations. Translucent colors are blended with what has
+   * already been drawn.
+   */
+  public void setColor(Color color) {
+    rgb = color.getRGB() & 0xffffff;
+    alpha = color.getAlpha();
+  }
+
+  /**
+   * Draws a one-pixel circle with the given center and radius.
+   */
+  public void drawCircle(double cx, double cy, double r) {
+    int x0 = (int) Math.round(cx) - originX;
+    int y0 = (int) Math.round(cy) - originY;
+    int ir = (int) Math.round(r);
+
+    if (ir < 1 || x0 + ir < 0 || x0 - ir >= width || y0 + ir < 0 || y0 - ir >= height) {
+      return;
+    }
+
+    int x = ir;
+    int y = 0;
+    int err = 1 - ir;
+
+    while (x >= y) {
+      plot(x0 + x, y0 + y);
+      plot(x0 + y, y0 + x);
+      plot(x0 - y, y0 + x);
+      plot(x0 - x, y0 + y);
+      plot(x0 - x, y0 - y);
+      plot(x0 - y, y0 - x);
+      plot(x0 + y, y0 - x);
+      plot(x0 + x, y0 - y);
+      y++;
+
+      if (err < 0) {
+        err += 2 * y + 1;
+      } else {
+        x--;
+        err += 2 * (y - x) + 1;
+      }
+    }
+  }
+
+  /**
+   * Fills a circle with the given center and radius. Like fillPolygon(), this fills the pixels
+   * whose centers are inside the circle, one span per row, so translucent colors blend evenly.
+   */
+  public void fillCircle(double cx, double cy, double r) {
+    double x = cx - originX;
+    double y = cy - originY;
+
+    if (x + r < 0 || x - r >= width || y + r < 0 || y - r >= height) {
+      return;
+    }
+
+    int py0 = Math.max((int) Math.ceil(y - r - 0.5), 0);
+    int py1 = Math.min((int) Math.ceil(y + r - 0.5), height);
+    double r2 = r * r;
+
+    for (int py = py0; py < py1; py++) {
+      double dy = py + 0.5 - y;
+      double half = Math.sqrt(r2 - dy * dy);
+      hline((int) Math.ceil(x - half - 0.5), (int) Math.ceil(x + half - 0.5) - 1, py);
+    }
+  }
+
+  /**
+   * Fills the polygon with the given vertices, using the even-odd rule. Pixels are filled if
+   * their centers are inside the polygon.
+   */
+  public void fillPolygon(double[] xs, double[] ys, int n) {
+    double minY = Double.POSITIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+
+    for (int i = 0; i < n; i++) {
+      minY = Math.min(minY, ys[i]);
+      maxY = Math.max(maxY, ys[i]);
+    }
+
+    int py0 = Math.max((int) Math.ceil(minY - 0.5) - originY, 0);
+    int py1 = Math.min((int) Math.ceil(maxY - 0.5) - originY, height);
+
+    if (crossings.length < n) {
+      crossings = new double[n];
+    }
+
+    for (int py = py0; py < py1; py++) {
+      double sy = py + originY + 0.5;
+      int count = 0;
+
+      for (int i = 0, j = n - 1; i < n; j = i++) {
+        double yi = ys[i];
+        double yj = ys[j];
+
+        if ((yi <= sy) != (yj <= sy)) {
+          double x = xs[j] + (sy - yj) * (xs[i] - xs[j]) / (yi - yj);
+          int k = count++;
+
+          // insertion sort; there are only ever a few crossings
+          while (k > 0 && crossings[k - 1] > x) {
+            crossings[k] = crossings[k - 1];
+            k--;
+          }
+
+          crossings[k] = x;
+        }
+      }
+
+      for (int k = 0; k + 1 < count; k += 2) {
+        int left = (int) Math.ceil(crossings[k] - 0.5) - originX;
+        int right = (int) Math.ceil(crossings[k + 1] - 0.5) - originX - 1;
+        hline(left, right, py);
+      }
+    }
+  }
+
+  /**
+   * Fills the pixels from x0 to x1 inclusive on row y, in image coordinates.
+   */
+  private void hline(int x0, int x1, int y) {
+    if (y < 0 || y >= height) {
+      return;
+    }
+
+    x0 = Math.max(x0, 0);
+    x1 = Math.min(x1, width - 1);
+
+    if (x0 > x1) {
+      return;
+    }
+
+    int start = y * width + x0;
+    int end = y * width + x1;
+
+    if (alpha == 255) {
+      Arrays.fill(pixels, start, end + 1, rgb);
+      return;
+    }
+
+    for (int i = start; i <= end; i++) {
+      pixels[i] = blend(pixels[i]);
+    }
+  }
+
+  /**
+   * Sets a single pixel, in image coordinates.
+   */
+  private void plot(int x, int y) {
+    if (x < 0 || y < 0 || x >= width || y >= height) {
+      return;
+    }
+
+    int i = y * width + x;
+    pixels[i] = alpha == 255 ? rgb : blend(pixels[i]);
+  }
+
+  /**
+   * Blends the current color over the given opaque pixel value. The alpha is scaled from 0-255 to
+   * 0-256 and the result rounded, so that it stays within 1 of what Java2D produces.
+   */
+  private int blend(int dst) {
+    int a = alpha + (alpha >> 7);
+    int dr = dst >> 16 & 0xff;
+    int dg = dst >> 8 & 0xff;
+    int db = dst & 0xff;
+    int r = dr + (((rgb >> 16 & 0xff) - dr) * a + 128 >> 8);
+    int g = dg + (((rgb >> 8 & 0xff) - dg) * a + 128 >> 8);
+    int b = db + (((rgb & 0xff) - db) * a + 128 >> 8);
+    return r << 16 | g << 8 | b;
+  }
+}
@@ -0,0 +1,183 @@
+package com.walkertribe.artemisdisplay.render;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.walkertribe.ian.enums.ObjectType;
+import com.walkertribe.ian.world.ArtemisObject;
+
+/**
+ * <p>
+ * Decides how much detail a MapProjection spends on each kind of object, so that a cluttered map
+ * costs about the same to render as an empty one. Two policies are available:
+ * </p>
+ * <ul>
+ * <li><b>Budgets:</b> At most the given number of objects of an ObjectType are drawn each frame.
+ * Objects are offered in ID order, so the ones that are skipped are the same from frame to frame.
+ * </li>
+ * <li><b>Clustering:</b> Objects of a clustered ObjectType are binned into square cells of the
+ * given size in pixels instead of being drawn right away. Cells holding a single object draw it
+ * normally; cells holding more draw one aggregate glyph. The number of glyphs is bounded by the
+ * number of cells, no matter how dense the field is.</li>
+ * </ul>
+ * <p>
+ * The MapProjection calls begin() at the start of each frame, offers each object to accept() in
+ * draw order, and calls flush() whenever the ObjectType changes and at the end of the frame, to
+ * draw any clustered objects in the correct layer.
+ * </p>
+ * @author rjwut
+ */
+public class LevelOfDetail {
+  /**
+   * Draws the objects and clusters released by a LevelOfDetail.
+   */
+  public interface Renderer {
+    /**
+     * Draws a single object at the given screen coordinates.
+     */
+    void renderObject(ArtemisObject obj, float x, float y);
+
+    /**
+     * Draws an aggregate glyph for count objects of the same type, centered on their average
+     * screen position. The given object is one of them, for picking colors.
+     */
+    void renderCluster(ArtemisObject obj, float x, float y, int count, int cellSize);
+  }
+
+  private static final int TYPE_COUNT = ObjectType.values().length;
+
+  private int[] budgets = new int[TYPE_COUNT];
+  private Set<ObjectType> clusterTypes = EnumSet.noneOf(ObjectType.class);
+  private int cellSize;
+
+  private int[] drawn = new int[TYPE_COUNT];
+  private int originX;
+  private int originY;
+  private int cols;
+  private int rows;
+  private int[] cellCounts = new int[0];
+  private ArtemisObject[] cellObjects = new ArtemisObject[0];
+  private float[] cellSumX = new float[0];
+  private float[] cellSumY = new float[0];
+  private int[] touched = new int[0];
+  private int touchedCount;
+
+  /**
+   * Creates a LevelOfDetail with no budgets and no clustering; every object is drawn.
+   */
+  public LevelOfDetail() {
+    Arrays.fill(budgets, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Limits the number of objects of the given type that are drawn each frame.
+   */
+  public LevelOfDetail budget(ObjectType type, int max) {
+    if (max < 0) {
+      throw new IllegalArgumentException("Budget can't be negative");
+    }
+
+    budgets[type.ordinal()] = max;
+    return this;
+  }
+
+  /**
+   * Clusters objects of the given types into cells of the given size, in pixels.
+   */
+  public LevelOfDetail cluster(int cellSize, ObjectType... types) {
+    if (cellSize < 2) {
+      throw new IllegalArgumentException("Cluster cells must be at least two pixels");
+    }
+
+    this.cellSize = cellSize;
+    clusterTypes.addAll(Arrays.asList(types));
+    return this;
+  }
+
+  /**
+   * Starts a new frame within the given bounds.
+   */
+  public void begin(Rectangle bounds) {
+    Arrays.fill(drawn, 0);
+    touchedCount = 0;
+
+    if (clusterTypes.isEmpty()) {
+      return;
+    }
+
+    originX = bounds.x;
+    originY = bounds.y;
+    cols = (bounds.width + cellSize - 1) / cellSize;
+    rows = (bounds.height + cellSize - 1) / cellSize;
+    int cells = cols * rows;
+
+    if (cellCounts.length < cells) {
+      cellCounts = new int[cells];
+      cellObjects = new ArtemisObject[cells];
+      cellSumX = new float[cells];
+      cellSumY = new float[cells];
+      touched = new int[cells];
+    }
+  }
+
+  /**
+   * Offers an object at the given screen coordinates. Returns true if it should be drawn now;
+   * false if it's over budget or has been held for clustering.
+   */
+  public boolean accept(ArtemisObject obj, float x, float y) {
+    ObjectType type = obj.getType();
+
+    if (clusterTypes.contains(type)) {
+      int col = (int) ((x - originX) / cellSize);
+      int row = (int) ((y - originY) / cellSize);
+
+      if (x >= originX && y >= originY && col < cols && row < rows) {
+        int cell = row * cols + col;
+
+        if (cellCounts[cell]++ == 0) {
+          touched[touchedCount++] = cell;
+          cellObjects[cell] = obj;
+          cellSumX[cell] = 0;
+          cellSumY[cell] = 0;
+        }
+
+        cellSumX[cell] += x;
+        cellSumY[cell] += y;
+        return false;
+      }
+    }
+
+    return drawn[type.ordinal()]++ < budgets[type.ordinal()];
+  }
+
+  /**
+   * Draws the objects held for clustering since the last flush, then clears the cells.
+   */
+  public void flush(Renderer renderer) {
+    for (int i = 0; i < touchedCount; i++) {
+      int cell = touched[i];
+      int count = cellCounts[cell];
+      ArtemisObject obj = cellObjects[cell];
+      int type = obj.getType().ordinal();
+      cellCounts[cell] = 0;
+      cellObjects[cell] = null;
+
+      if (drawn[type]++ >= budgets[type]) {
+        continue;
+      }
+
+      float x = cellSumX[cell] / count;
+      float y = cellSumY[cell] / count;
+
+      if (count == 1) {
+        renderer.renderObject(obj, x, y);
+      } else {
+        renderer.renderCluster(obj, x, y, count, cellSize);
+      }
+    }
+
+    touchedCount = 0;
+  }
+}
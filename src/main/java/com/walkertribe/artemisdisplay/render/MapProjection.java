@@ -1,14 +1,17 @@
 package com.walkertribe.artemisdisplay.render;
 
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
-import com.walkertribe.ian.Context;
+import com.walkertribe.artemisdisplay.HullTable;
+import com.walkertribe.artemisdisplay.metrics.CacheStats;
 import com.walkertribe.ian.enums.GameType;
 import com.walkertribe.ian.enums.ObjectType;
 import com.walkertribe.ian.util.BoolState;
@@ -28,18 +31,76 @@ public class MapProjection {
   private static final float OBJECT_SCALE = 200;
   private static final float RENDER_DISTANCE_MULTIPLIER = 28;
   private static final WorldObjectComparator COMPARATOR = new WorldObjectComparator();
+  private static final int LRS_CLUSTER_CELL_SIZE = 8;
+  private static final int LRS_NEBULA_BUDGET = 400;
+  private static final int LRS_SMALL_OBJECT_BUDGET = 100;
+  private static final String[][] SECTOR_IDS = new String[5][5];
+  private static final CacheStats BACKGROUND_CACHE = CacheStats.register("map_background");
+
+  static {
+    for (int r = 0; r < 5; r++) {
+      for (int c = 0; c < 5; c++) {
+        SECTOR_IDS[r][c] = Character.toString((char) ('A' + r)) + (5 - c);
+      }
+    }
+  }
 
   private World world;
   private TopDownObjectRenderer renderer;
   private Mode mode;
+  private LevelOfDetail lod;
+  private ObjectSink sink = new ObjectSink();
+  private List<ArtemisObject> visible = new ArrayList<>();
+  private IntRasterizer raster;
+  private OffscreenSurface background = new OffscreenSurface(this::paintBackground, false, true);
+  private float backgroundScale;
+  private boolean backgroundBorderWar;
+  private int backgroundBoundsHeight;
+  private Font backgroundFont;
+  private Object backgroundAntialias;
+  private Object backgroundTextAntialias;
+  private RenderingHints backgroundHints;
+  private float backgroundFx;
+  private float backgroundFz;
 
   /**
-   * Creates a MapProjection that draws the given World, using the given Context.
+   * Creates a MapProjection that draws the given World, using the given HullTable.
    */
-  public MapProjection(World world, Context ctx, Mode mode) {
+  public MapProjection(World world, HullTable hulls, Mode mode) {
     this.world = world;
-    renderer = new TopDownObjectRenderer(ctx, world, RenderMode.SOLID, true);
+    renderer = new TopDownObjectRenderer(hulls, world, RenderMode.SOLID, true);
     this.mode = mode;
+    lod = mode.createLevelOfDetail();
+  }
+
+  /**
+   * Replaces the mode's default LevelOfDetail policy.
+   */
+  public void setLevelOfDetail(LevelOfDetail lod) {
+    this.lod = lod;
+  }
+
+  /**
+   * Sets whether ships and other objects should be drawn as silhouettes of their models when
+   * they're large enough, or always as simple shapes.
+   */
+  public void setDrawSilhouettes(boolean drawSilhouettes) {
+    renderer.setDrawModels(drawSilhouettes);
+  }
+
+  /**
+   * Sets whether simple object shapes should be drawn with an IntRasterizer instead of through
+   * Java2D. This is faster on machines without hardware acceleration, but is never
+   * antialiased. The background is still painted with Java2D, since it's cached in a surface and
+   * only repainted when it changes.
+   */
+  public void setIntRaster(boolean intRaster) {
+    if (intRaster == (raster != null)) {
+      return;
+    }
+
+    raster = intRaster ? new IntRasterizer() : null;
+    renderer.setRasterizer(raster);
   }
 
   /**
@@ -47,6 +108,12 @@ public class MapProjection {
    * object is a reference to the player ship.
    */
   public void render(Graphics2D g, ArtemisPlayer player, GameType gameType) {
+    Graphics2D target = g;
+
+    if (raster != null) {
+      g = raster.begin(target);
+    }
+
     Rectangle bounds = g.getClipBounds();
     float cx = (float) bounds.getCenterX();
     float cy = (float) bounds.getCenterY();
@@ -54,6 +121,137 @@ public class MapProjection {
     float scale = mode.displayScale * (float) size / Artemis.MAP_SIZE;
     float fx = mode.getFocusX(player);
     float fz = mode.getFocusZ(player);
+    renderBackground(g, bounds, size, scale, fx, fz, gameType);
+
+    // Render objects
+    float r = scale * OBJECT_SCALE;
+    sink.g = g;
+    sink.player = player;
+    sink.r = r;
+    collectVisible(bounds, player, scale, cx, cy, fx, fz, r * RENDER_DISTANCE_MULTIPLIER);
+    lod.begin(bounds);
+    ObjectType lastType = null;
+
+    for (ArtemisObject obj : visible) {
+      if (obj.getType() != lastType) {
+        lod.flush(sink); // draw held clusters before moving on to the next layer
+        lastType = obj.getType();
+      }
+
+      float x = translateX(obj.getX(), fx, scale, cx);
+      float y = translateY(obj.getZ(), fz, scale, cy);
+
+      if (lod.accept(obj, x, y)) {
+        renderer.render(g, x, y, r, obj, player);
+      }
+    }
+
+    visible.clear();
+    lod.flush(sink);
+    sink.g = null;
+    sink.player = null;
+
+    if (raster != null) {
+      raster.end(target);
+    }
+  }
+
+  /**
+   * Fills the visible list with the objects that have a position, aren't hidden from the player's
+   * side, and could reach into the bounds, sorted into drawing order. Objects are culled with
+   * primitive comparisons before anything is allocated, so only those that survive are sorted.
+   */
+  private void collectVisible(Rectangle bounds, ArtemisPlayer player, float scale, float cx,
+      float cy, float fx, float fz, float maxSize) {
+    byte side = player != null ? player.getSide() : -1;
+    int size = (int) (maxSize * 2);
+
+    if (size <= 0) {
+      return;
+    }
+
+    int right = bounds.x + bounds.width;
+    int bottom = bounds.y + bounds.height;
+
+    for (ArtemisObject obj : world) {
+      if (!obj.hasPosition()) {
+        continue; // can't render an object if we don't know where it is
+      }
+
+      if (side != -1 && obj.getVisibility(side) == BoolState.FALSE) {
+        continue; // object is not visible to us
+      }
+
+      int left = (int) (translateX(obj.getX(), fx, scale, cx) - maxSize);
+      int top = (int) (translateY(obj.getZ(), fz, scale, cy) - maxSize);
+
+      if (left < right && left + size > bounds.x && top < bottom && top + size > bounds.y) {
+        visible.add(obj);
+      }
+    }
+
+    visible.sort(COMPARATOR);
+  }
+
+  /**
+   * Draws the sector grid, the neutral zone and the sector IDs. These only change when the bounds,
+   * the game type, the font or the antialiasing hints do, so they're rendered into an
+   * OffscreenSurface and redrawn from it. In modes where the map moves with the player ship, the
+   * surface extends past the bounds on all sides, and it's just shifted as the focus point moves
+   * until it's shifted too far, at which point it's repainted around the new focus point.
+   */
+  private void renderBackground(Graphics2D g, Rectangle bounds, int size, float scale, float fx,
+      float fz, GameType gameType) {
+    int margin = (int) (size * mode.backgroundMargin);
+    Object antialias = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+    Object textAntialias = g.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+    Font font = g.getFont();
+    boolean borderWar = gameType == GameType.BORDER_WAR;
+
+    if (scale != backgroundScale || borderWar != backgroundBorderWar ||
+        bounds.height != backgroundBoundsHeight || !font.equals(backgroundFont) ||
+        antialias != backgroundAntialias || textAntialias != backgroundTextAntialias) {
+      backgroundScale = scale;
+      backgroundBorderWar = borderWar;
+      backgroundBoundsHeight = bounds.height;
+      backgroundFont = font;
+      backgroundAntialias = antialias;
+      backgroundTextAntialias = textAntialias;
+      backgroundHints = g.getRenderingHints();
+      background.invalidate();
+    }
+
+    background.setSize(bounds.width + margin * 2, bounds.height + margin * 2);
+    int shiftX = Math.round(scale * (fx - backgroundFx));
+    int shiftY = Math.round(scale * (backgroundFz - fz));
+
+    if (Math.abs(shiftX) > margin || Math.abs(shiftY) > margin) {
+      background.invalidate();
+    }
+
+    if (background.isValid()) {
+      BACKGROUND_CACHE.hit();
+    } else {
+      BACKGROUND_CACHE.miss();
+      backgroundFx = fx;
+      backgroundFz = fz;
+      shiftX = 0;
+      shiftY = 0;
+    }
+
+    background.draw(g, bounds.x - margin + shiftX, bounds.y - margin + shiftY);
+  }
+
+  /**
+   * Paints the background surface, centered on the focus point it was last invalidated for.
+   */
+  private void paintBackground(Graphics2D g, int width, int height) {
+    g.setRenderingHints(backgroundHints);
+    float cx = width * 0.5f;
+    float cy = height * 0.5f;
+    float scale = backgroundScale;
+    float fx = backgroundFx;
+    float fz = backgroundFz;
 
     // Render sector grid
     float x0 = translateX(0, fx, scale, cx);
@@ -70,7 +268,7 @@ public class MapProjection {
       g.drawLine((int) x0, (int) y, (int) (x1), (int) y);
     }
 
-    if (gameType == GameType.BORDER_WAR) {
+    if (backgroundBorderWar) {
       // Render neutral zone
       float nzx0 = translateX(Artemis.MAP_SIZE * 0.6f, fx, scale, cx);
       float nzx1 = translateX(Artemis.MAP_SIZE * 0.4f, fx, scale, cx);
@@ -80,7 +278,7 @@ public class MapProjection {
 
     if (mode.renderSectorIds) {
       // Render sector IDs
-      g.setFont(g.getFont().deriveFont(bounds.height * 0.02f));
+      g.setFont(backgroundFont.deriveFont(backgroundBoundsHeight * 0.02f));
       FontMetrics metrics = g.getFontMetrics();
       int dy = metrics.getAscent();
 
@@ -88,40 +286,10 @@ public class MapProjection {
         for (int c = 0; c < 5; c++) {
           float x = translateX(Artemis.MAP_SIZE * 0.2f * (c + 1), fx, scale, cx) + 3;
           float y = translateY(Artemis.MAP_SIZE * 0.2f * r, fz, scale, cy) + dy;
-          g.drawString(Character.toString(('A' + r)) + (5 - c), x, y);
+          g.drawString(SECTOR_IDS[r][c], x, y);
         }
       }
     }
-
-    // Render objects
-    for (ArtemisObject obj : world.getAll(COMPARATOR)) {
-      if (!obj.hasPosition()) {
-        continue; // can't render an object if we don't know where it is
-      }
-
-      if (player != null) {
-        byte side = player.getSide();
-
-        if (side != -1 && obj.getVisibility(side) == BoolState.FALSE) {
-          continue; // object is not visible to us
-        }
-      }
-
-      float x = translateX(obj.getX(), fx, scale, cx);
-      float y = translateY(obj.getZ(), fz, scale, cy);
-      float r = scale * OBJECT_SCALE;
-      float maxSize = r * RENDER_DISTANCE_MULTIPLIER;
-      Rectangle objectBounds = new Rectangle(
-          (int) (x - maxSize),
-          (int) (y - maxSize),
-          (int) (maxSize * 2),
-          (int) (maxSize * 2)
-      );
-
-      if (bounds.intersects(objectBounds)) {
-        renderer.render(g, x, y, r, obj, player);
-      }
-    }
   }
 
   /**
@@ -148,7 +316,7 @@ public class MapProjection {
      * Long range sensor mode: focus on the center, full-map scale, render sector IDs, don't render
      * beam arcs.
      */
-    LRS(1, true) {
+    LRS(1, true, 0) {
       @Override
       protected float getFocusX(ArtemisPlayer player) {
         return MAP_CENTER;
@@ -158,12 +326,21 @@ public class MapProjection {
       protected float getFocusZ(ArtemisPlayer player) {
         return MAP_CENTER;
       }
+
+      @Override
+      protected LevelOfDetail createLevelOfDetail() {
+        return new LevelOfDetail()
+            .cluster(LRS_CLUSTER_CELL_SIZE, ObjectType.ASTEROID, ObjectType.MINE)
+            .budget(ObjectType.NEBULA, LRS_NEBULA_BUDGET)
+            .budget(ObjectType.TORPEDO, LRS_SMALL_OBJECT_BUDGET)
+            .budget(ObjectType.DRONE, LRS_SMALL_OBJECT_BUDGET);
+      }
     },
     /**
      * Tactical mode: focus on player ship, 10x map scale, don't render sector IDs, render beam
      * arcs.
      */
-    TACTICAL(10, false) {
+    TACTICAL(10, false, 0.25f) {
       @Override
       protected float getFocusX(ArtemisPlayer player) {
         return player != null ? player.getX() : Artemis.MAP_SIZE / 2;
@@ -185,18 +362,49 @@ public class MapProjection {
      */
     protected abstract float getFocusZ(ArtemisPlayer player);
 
+    /**
+     * Returns a new LevelOfDetail policy for this mode. By default, every object is drawn.
+     */
+    protected LevelOfDetail createLevelOfDetail() {
+      return new LevelOfDetail();
+    }
+
     private float displayScale;
     private boolean renderSectorIds;
+    private float backgroundMargin;
 
     /**
      * Render parameters for the MapProjection. The displayScale controls the scale of the map
      * relative to the size of the Display. A value of 1 means that the map is scaled so that it
      * fits exactly within the Display (if it is centered). Higher values will cause the map to be
-     * "zoomed" in by that factor. The other arguments toggle additional map features.
+     * "zoomed" in by that factor. The backgroundMargin is how far the cached background extends
+     * past the Display on each side, as a fraction of the Display's size; it should be zero if the
+     * focus point never moves. The other arguments toggle additional map features.
      */
-    private Mode(float displayScale, boolean renderSectorIds) {
+    private Mode(float displayScale, boolean renderSectorIds, float backgroundMargin) {
       this.displayScale = displayScale;
       this.renderSectorIds = renderSectorIds;
+      this.backgroundMargin = backgroundMargin;
+    }
+  }
+
+  /**
+   * Draws the objects and clusters released by the LevelOfDetail, using the state of the frame
+   * currently being rendered.
+   */
+  private class ObjectSink implements LevelOfDetail.Renderer {
+    private Graphics2D g;
+    private ArtemisPlayer player;
+    private float r;
+
+    @Override
+    public void renderObject(ArtemisObject obj, float x, float y) {
+      renderer.render(g, x, y, r, obj, player);
+    }
+
+    @Override
+    public void renderCluster(ArtemisObject obj, float x, float y, int count, int cellSize) {
+      renderer.renderCluster(g, x, y, r, obj, player, count, cellSize);
     }
   }
 
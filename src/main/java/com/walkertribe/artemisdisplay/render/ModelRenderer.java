@@ -22,10 +22,12 @@ public interface ModelRenderer<T> {
   public void render(Graphics2D g, Model model, T params, Grid grid);
 
   /**
-   * Renders a given Vessel. Implementations may support rendering of system nodes and beam arcs (if
-   * the given Vessel has them). If a SystemGrid is provided, that will be rendered on top.
+   * Renders a given Vessel with its Model. The Model is passed in rather than obtained from the
+   * Vessel, since that would go through the Context; displays get it from the HullTable.
+   * Implementations may support rendering of system nodes and beam arcs (if the given Vessel has
+   * them). If a SystemGrid is provided, that will be rendered on top.
    */
-  public default void render(Graphics2D g, Vessel vessel, T params, Grid grid) {
-    render(g, vessel != null ? vessel.getModel() : null, params, grid);
+  public default void render(Graphics2D g, Vessel vessel, Model model, T params, Grid grid) {
+    render(g, model, params, grid);
   }
 }
@@ -0,0 +1,184 @@
+package com.walkertribe.artemisdisplay.render;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import com.walkertribe.artemisdisplay.HullTable;
+import com.walkertribe.artemisdisplay.metrics.CacheStats;
+import com.walkertribe.ian.enums.ObjectType;
+import com.walkertribe.ian.util.BoolState;
+import com.walkertribe.ian.world.ArtemisMesh;
+import com.walkertribe.ian.world.ArtemisNebula;
+import com.walkertribe.ian.world.ArtemisNpc;
+import com.walkertribe.ian.world.ArtemisObject;
+import com.walkertribe.ian.world.ArtemisPlayer;
+import com.walkertribe.ian.world.ArtemisShielded;
+import com.walkertribe.ian.world.World;
+
+/**
+ * <p>
+ * Remembers the Color that Util.getObjectColor() returned for each object, so that it doesn't have
+ * to look up Vessels and Factions and work out IFF for every object on every frame. Along with
+ * each Color, the cache stores a signature packed from everything the Color depends on: the
+ * object's type, side, hull ID, scan level and surrender state, the player's side and ID, whether
+ * the biomechs are raging, and the nebula type or mesh color. The Color is only recomputed when the
+ * signature changes.
+ * </p>
+ * <p>
+ * Entries are kept in an open-addressed table keyed by object ID, so a lookup doesn't allocate.
+ * Deleted objects aren't removed; instead, the table is cleared if it grows too large.
+ * </p>
+ * @author rjwut
+ */
+public class ObjectColorCache {
+  private static final int INITIAL_CAPACITY = 256;
+  private static final int MAX_CAPACITY = 1 << 16;
+  private static final CacheStats STATS = CacheStats.register("object_colors");
+
+  private HullTable hulls;
+  private World world;
+  private boolean solid;
+  private int[] ids = new int[INITIAL_CAPACITY];
+  private long[] signatures = new long[INITIAL_CAPACITY];
+  private Color[] colors = new Color[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Creates a cache of the Colors Util.getObjectColor() returns with the given arguments.
+   */
+  public ObjectColorCache(HullTable hulls, World world, boolean solid) {
+    this.hulls = hulls;
+    this.world = world;
+    this.solid = solid;
+  }
+
+  /**
+   * Returns the Color for the given object, as seen from the given player ship.
+   */
+  public Color get(ArtemisObject obj, ArtemisPlayer player) {
+    int id = obj.getId();
+    long signature = computeSignature(obj, player);
+    int i = find(id);
+
+    if (colors[i] != null && signatures[i] == signature) {
+      STATS.hit();
+      return colors[i];
+    }
+
+    STATS.miss();
+    Color color = Util.getObjectColor(hulls, world, obj, player, solid);
+
+    if (colors[i] == null) {
+      if ((size + 1) * 4 > ids.length * 3) {
+        resize();
+        i = find(id);
+      }
+
+      ids[i] = id;
+      size++;
+    }
+
+    signatures[i] = signature;
+    colors[i] = color;
+    return color;
+  }
+
+  /**
+   * Discards all cached Colors.
+   */
+  public void clear() {
+    Arrays.fill(colors, null);
+    size = 0;
+  }
+
+  /**
+   * Returns the index of the slot for the given ID: either the slot that holds it, or the empty
+   * slot where it should go.
+   */
+  private int find(int id) {
+    int mask = ids.length - 1;
+    int i = (id * 0x9e3779b9) >>> 16 & mask;
+
+    while (colors[i] != null && ids[i] != id) {
+      i = i + 1 & mask;
+    }
+
+    return i;
+  }
+
+  /**
+   * Doubles the capacity of the table, or clears it if it's already at its maximum size.
+   */
+  private void resize() {
+    if (ids.length >= MAX_CAPACITY) {
+      clear();
+      return;
+    }
+
+    int[] oldIds = ids;
+    long[] oldSignatures = signatures;
+    Color[] oldColors = colors;
+    int capacity = ids.length * 2;
+    ids = new int[capacity];
+    signatures = new long[capacity];
+    colors = new Color[capacity];
+
+    for (int j = 0; j < oldIds.length; j++) {
+      if (oldColors[j] != null) {
+        int i = find(oldIds[j]);
+        ids[i] = oldIds[j];
+        signatures[i] = oldSignatures[j];
+        colors[i] = oldColors[j];
+      }
+    }
+  }
+
+  /**
+   * Packs everything the object's Color depends on into a long. The high 32 bits hold the hull
+   * ID, nebula type or a hash of the mesh color, depending on the object type.
+   */
+  private long computeSignature(ArtemisObject obj, ArtemisPlayer player) {
+    ObjectType type = obj.getType();
+    int playerSide = player != null ? player.getSide() : -1;
+    int side = 0;
+    int scanLevel = 0;
+    int surrendered = 0;
+    int self = 0;
+    int raging = 0;
+    int payload = 0;
+
+    if (obj instanceof ArtemisShielded) {
+      side = ((ArtemisShielded) obj).getSide();
+      scanLevel = obj.getScanLevel(playerSide);
+    }
+
+    switch (type) {
+    case PLAYER_SHIP:
+      self = player != null && obj.getId() == player.getId() ? 1 : 0;
+      break;
+
+    case NPC_SHIP:
+      BoolState state = ((ArtemisNpc) obj).isSurrendered();
+      surrendered = state != null ? state.ordinal() + 1 : 0;
+      raging = world != null && world.getBiomechRage() > 0 ? 1 : 0;
+      payload = ((ArtemisNpc) obj).getHullId();
+      break;
+
+    case NEBULA:
+      payload = ((ArtemisNebula) obj).getNebulaType();
+      break;
+
+    case GENERIC_MESH:
+      ArtemisMesh mesh = (ArtemisMesh) obj;
+      payload = (Float.hashCode(mesh.getRed()) * 31 + Float.hashCode(mesh.getGreen())) * 31 +
+          Float.hashCode(mesh.getBlue());
+      break;
+
+    default:
+      break;
+    }
+
+    return (long) payload << 32 | (long) type.ordinal() << 28 | surrendered << 26 | raging << 25 |
+        self << 24 | (scanLevel & 0xff) << 16 | (side & 0xff) << 8 | playerSide & 0xff;
+  }
+}
@@ -0,0 +1,216 @@
+package com.walkertribe.artemisdisplay.render;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * <p>
+ * An off-screen image which remembers how to paint itself. Where the graphics pipeline can
+ * accelerate it, the image is a VolatileImage in video memory, which is much faster to draw to the
+ * screen; otherwise (software pipelines, headless mode, or when the surface is painted off the
+ * event dispatch thread) it's a BufferedImage.
+ * </p>
+ * <p>
+ * The contents of a VolatileImage can be lost at any time, for example when the display mode
+ * changes or another application takes over the video card. The surface checks for this whenever
+ * it's drawn and repaints itself using its Painter, so callers never see a blank image.
+ * </p>
+ * @author rjwut
+ */
+public class OffscreenSurface {
+  private static final int MAX_DRAW_ATTEMPTS = 3;
+
+  /**
+   * Paints the contents of an OffscreenSurface. The Graphics2D context has been cleared to
+   * transparent (or black, for opaque surfaces) and its clip is set to the surface's bounds.
+   */
+  @FunctionalInterface
+  public interface Painter {
+    void paint(Graphics2D g, int width, int height);
+  }
+
+  private Painter painter;
+  private boolean translucent;
+  private boolean accelerated;
+  private int width;
+  private int height;
+  private VolatileImage volatileImage;
+  private BufferedImage bufferedImage;
+  private boolean valid;
+
+  /**
+   * Creates a new OffscreenSurface which will be painted by the given Painter. If translucent is
+   * true, the surface has an alpha channel; otherwise, it's opaque. If accelerated is false, the
+   * surface always uses a BufferedImage; this is required if it will be painted from a thread other
+   * than the event dispatch thread.
+   */
+  public OffscreenSurface(Painter painter, boolean translucent, boolean accelerated) {
+    this.painter = painter;
+    this.translucent = translucent;
+    this.accelerated = accelerated && !GraphicsEnvironment.isHeadless();
+  }
+
+  /**
+   * Sets the size of the surface. If it's different from the current size, the image is discarded
+   * and will be recreated and repainted when it's next needed.
+   */
+  public void setSize(int width, int height) {
+    if (width == this.width && height == this.height) {
+      return;
+    }
+
+    this.width = width;
+    this.height = height;
+    flush();
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns true if the surface has been painted and hasn't been invalidated since. This doesn't
+   * detect contents lost by an accelerated surface; draw() handles that.
+   */
+  public boolean isValid() {
+    return valid;
+  }
+
+  /**
+   * Marks the contents as out of date, so that the surface will be repainted when it's next
+   * updated or drawn.
+   */
+  public void invalidate() {
+    valid = false;
+  }
+
+  /**
+   * Makes sure the image exists and its contents are current, repainting it if needed. The given
+   * GraphicsConfiguration is the one the surface will be drawn on; it's used to create a compatible
+   * VolatileImage, and may be null if the surface isn't accelerated.
+   */
+  public void update(GraphicsConfiguration gc) {
+    if (width < 1 || height < 1) {
+      return;
+    }
+
+    if (volatileImage != null) {
+      int status = volatileImage.validate(gc);
+
+      if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+        volatileImage.flush();
+        volatileImage = null;
+      } else if (status == VolatileImage.IMAGE_RESTORED) {
+        valid = false;
+      }
+    }
+
+    if (volatileImage == null && bufferedImage == null) {
+      createImage(gc);
+      valid = false;
+    }
+
+    if (!valid) {
+      paint();
+    }
+  }
+
+  /**
+   * Draws the surface with its upper-left corner at the given position, first updating it if
+   * needed. If the contents of an accelerated surface are lost while drawing, it's repainted and
+   * drawn again.
+   */
+  public void draw(Graphics2D g, int x, int y) {
+    if (width < 1 || height < 1) {
+      return;
+    }
+
+    GraphicsConfiguration gc = g.getDeviceConfiguration();
+
+    for (int i = 0; i < MAX_DRAW_ATTEMPTS; i++) {
+      update(gc);
+      g.drawImage(getImage(), x, y, null);
+
+      if (volatileImage == null || !volatileImage.contentsLost()) {
+        return;
+      }
+
+      valid = false;
+    }
+  }
+
+  /**
+   * Releases the image. It will be recreated when it's next needed.
+   */
+  public void flush() {
+    if (volatileImage != null) {
+      volatileImage.flush();
+      volatileImage = null;
+    }
+
+    bufferedImage = null;
+    valid = false;
+  }
+
+  /**
+   * Returns the current image, or null if it hasn't been created.
+   */
+  private Image getImage() {
+    return volatileImage != null ? volatileImage : bufferedImage;
+  }
+
+  /**
+   * Creates the image: a VolatileImage if possible and it's actually accelerated, or a
+   * BufferedImage otherwise.
+   */
+  private void createImage(GraphicsConfiguration gc) {
+    int transparency = translucent ? Transparency.TRANSLUCENT : Transparency.OPAQUE;
+
+    if (accelerated && gc != null) {
+      VolatileImage image = gc.createCompatibleVolatileImage(width, height, transparency);
+
+      if (image != null && image.getCapabilities().isAccelerated()) {
+        volatileImage = image;
+        return;
+      }
+
+      if (image != null) {
+        image.flush();
+      }
+
+      accelerated = false; // don't keep trying on a software pipeline
+    }
+
+    bufferedImage = new BufferedImage(width, height,
+        translucent ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_RGB);
+  }
+
+  /**
+   * Clears the image and invokes the Painter.
+   */
+  private void paint() {
+    Graphics2D g = volatileImage != null ? volatileImage.createGraphics() : bufferedImage.createGraphics();
+
+    try {
+      g.setComposite(AlphaComposite.Clear);
+      g.fillRect(0, 0, width, height);
+      g.setComposite(AlphaComposite.SrcOver);
+      g.setClip(0, 0, width, height);
+      painter.paint(g, width, height);
+    } finally {
+      g.dispose();
+    }
+
+    valid = true;
+  }
+}
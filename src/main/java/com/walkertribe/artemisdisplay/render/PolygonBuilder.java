@@ -5,8 +5,11 @@ import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.walkertribe.artemisdisplay.util.Trig;
+
 /**
  * Simplifies drawing polygonal shapes where the vertices are declared using polar coordinates.
+ * For a shape that's drawn over and over, such as a map arrow, ArrowShape avoids rebuilding it.
  * @author rjwut
  */
 public class PolygonBuilder {
@@ -27,8 +30,8 @@ public class PolygonBuilder {
    * Adds a point defined by the given polar coordinates as the next vertex for the polygon.
    */
   public PolygonBuilder add(double theta, double r) {
-    double x = Math.cos(theta) * r + offsetX;
-    double y = -Math.sin(theta) * r + offsetY;
+    double x = Trig.DEFAULT.cos(theta) * r + offsetX;
+    double y = -Trig.DEFAULT.sin(theta) * r + offsetY;
     points.add(new Point2D.Double(x, y));
 
     if (path.getCurrentPoint() == null) {
@@ -6,9 +6,11 @@ import java.awt.Graphics2D;
 import java.awt.Polygon;
 import java.awt.Stroke;
 import java.awt.geom.Ellipse2D;
-import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,7 +24,8 @@ import com.walkertribe.ian.util.GridNode;
 import com.walkertribe.ian.vesseldata.Vessel;
 
 /**
- * Renders models in 3D.
+ * Renders models in 3D. The corridors between grid nodes are worked out once per Grid and Model
+ * and kept as a list of node index pairs, since they don't change during a game.
  * @author rjwut
  */
 public class ThreeDModelRenderer implements ModelRenderer<ThreeDRenderParams> {
@@ -31,9 +34,16 @@ public class ThreeDModelRenderer implements ModelRenderer<ThreeDRenderParams> {
   private static final Stroke GRID_STROKE = new BasicStroke(1);
   private static final Stroke DAMCON_STROKE = new BasicStroke(3, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER);
 
+  private Grid corridorGrid;
+  private Model corridorModel;
+  private String[] corridorKeys = new String[0];
+  private double[][] corridorCoords = new double[0][];
+  private int[] corridorEdges = new int[0];
+  private Path2D.Double corridorPath = new Path2D.Double();
+
   @Override
-  public void render(Graphics2D g, Vessel vessel, ThreeDRenderParams params, Grid grid) {
-    Model model = vessel != null ? vessel.getModel() : null;
+  public void render(Graphics2D g, Vessel vessel, Model model, ThreeDRenderParams params,
+      Grid grid) {
     Map<String, double[]> pointMap = buildPointMap(model, grid, vessel, params);
     render(g, pointMap, model, params, grid);
   }
@@ -76,36 +86,18 @@ public class ThreeDModelRenderer implements ModelRenderer<ThreeDRenderParams> {
 
     // Render the system nodes
     if (grid != null) {
+      List<GridNode> nodes = grid.getAccessibleNodes();
+
       // Corridors
+      if (grid != corridorGrid || model != corridorModel || nodes.size() != corridorKeys.length) {
+        buildCorridors(grid, model, nodes);
+      }
+
       g.setColor(params.gridColor);
       g.setStroke(GRID_STROKE);
-
-      for (GridNode node : grid) {
-        if (!node.isAccessible()) {
-          continue;
-        }
-
-        GridCoord gridCoord = node.getCoord();
-        double[] coords = pointMap.get(gridCoord.toString());
-        int x = gridCoord.x();
-        int y = gridCoord.y();
-        int z = gridCoord.z();
-
-        if (x != 0) {
-          drawCorridor(g, grid, pointMap, coords, x - 1, y, z);
-        }
-
-        if (y != 0) {
-          drawCorridor(g, grid, pointMap, coords, x, y - 1, z);
-        }
-
-        if (z != 0) {
-          drawCorridor(g, grid, pointMap, coords, x, y, z - 1);
-        }
-      }
+      drawCorridors(g, pointMap);
 
       // Nodes
-      List<GridNode> nodes = grid.getAccessibleNodes();
       nodes.sort((n1, n2) -> {
         double y1 = pointMap.get(n1.getCoord().toString())[1];
         double y2 = pointMap.get(n2.getCoord().toString())[1];
@@ -134,18 +126,70 @@ public class ThreeDModelRenderer implements ModelRenderer<ThreeDRenderParams> {
   }
 
   /**
-   * Draws a corridor between the given origin coordinates and the (presumably adjacent) node (if it
-   * exists) indicated by the given nodes coordinates.
+   * Finds the corridors between the given accessible nodes and stores them as pairs of indexes
+   * into corridorKeys. Corridors only join adjacent nodes, so each node is checked against its
+   * neighbors with lower coordinates.
    */
-  private static void drawCorridor(Graphics2D g, Grid grid, Map<String, double[]> pointMap,
-      double[] originCoords, int x, int y, int z) {
-    GridCoord adjGridCoord = GridCoord.get(x, y, z);
-    GridNode adjNode = grid.getNode(adjGridCoord);
-
-    if (adjNode.isAccessible()) {
-      double[] adjCoords = pointMap.get(adjGridCoord.toString());
-      g.draw(new Line2D.Double(originCoords[0], originCoords[2], adjCoords[0], adjCoords[2]));
+  private void buildCorridors(Grid grid, Model model, List<GridNode> nodes) {
+    int count = nodes.size();
+    Map<GridCoord, Integer> indexes = new HashMap<>();
+    corridorKeys = new String[count];
+    corridorCoords = new double[count][];
+    int[] edges = new int[count * 6];
+    int edgeCount = 0;
+
+    for (int i = 0; i < count; i++) {
+      GridCoord coord = nodes.get(i).getCoord();
+      indexes.put(coord, i);
+      corridorKeys[i] = coord.toString();
     }
+
+    for (int i = 0; i < count; i++) {
+      GridCoord coord = nodes.get(i).getCoord();
+      int x = coord.x();
+      int y = coord.y();
+      int z = coord.z();
+      Integer adj;
+
+      if (x != 0 && (adj = indexes.get(GridCoord.get(x - 1, y, z))) != null) {
+        edges[edgeCount++] = i;
+        edges[edgeCount++] = adj;
+      }
+
+      if (y != 0 && (adj = indexes.get(GridCoord.get(x, y - 1, z))) != null) {
+        edges[edgeCount++] = i;
+        edges[edgeCount++] = adj;
+      }
+
+      if (z != 0 && (adj = indexes.get(GridCoord.get(x, y, z - 1))) != null) {
+        edges[edgeCount++] = i;
+        edges[edgeCount++] = adj;
+      }
+    }
+
+    corridorEdges = Arrays.copyOf(edges, edgeCount);
+    corridorGrid = grid;
+    corridorModel = model;
+  }
+
+  /**
+   * Draws all the corridors as a single path.
+   */
+  private void drawCorridors(Graphics2D g, Map<String, double[]> pointMap) {
+    for (int i = 0; i < corridorKeys.length; i++) {
+      corridorCoords[i] = pointMap.get(corridorKeys[i]);
+    }
+
+    corridorPath.reset();
+
+    for (int i = 0; i < corridorEdges.length; i += 2) {
+      double[] from = corridorCoords[corridorEdges[i]];
+      double[] to = corridorCoords[corridorEdges[i + 1]];
+      corridorPath.moveTo(from[0], from[2]);
+      corridorPath.lineTo(to[0], to[2]);
+    }
+
+    g.draw(corridorPath);
   }
 
   /**
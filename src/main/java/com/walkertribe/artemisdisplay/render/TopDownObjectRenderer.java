@@ -4,12 +4,16 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.Stroke;
 import java.awt.geom.Arc2D;
 import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
+import com.walkertribe.artemisdisplay.HullTable;
+import com.walkertribe.artemisdisplay.metrics.CacheStats;
 import com.walkertribe.artemisdisplay.util.Angle;
-import com.walkertribe.ian.Context;
 import com.walkertribe.ian.enums.CreatureType;
 import com.walkertribe.ian.enums.ObjectType;
 import com.walkertribe.ian.model.Model;
@@ -36,6 +40,12 @@ public class TopDownObjectRenderer {
   private static final int BLACK_HOLE_SCALE = 28;
   private static final int BLACK_HOLE_RINGS = 5;
   private static final Stroke[] BLACK_HOLE_STROKES = new Stroke[BLACK_HOLE_RINGS];
+  private static final int SPRITE_NEBULA = 0;
+  private static final int SPRITE_BLACK_HOLE = 1;
+  private static final int SPRITE_SLOT_BITS = 6;
+  private static final int MAX_SPRITES = 32; // half the slots, so probes stay short
+  private static final int MAX_SPRITE_RADIUS = 1024;
+  private static final CacheStats SPRITE_CACHE = CacheStats.register("map_sprites");
 
   static {
     for (int i = 0; i < 5; i++) {
@@ -45,22 +55,37 @@ public class TopDownObjectRenderer {
     }
   }
 
-  private Context ctx;
+  private HullTable hulls;
   private World world;
+  private ObjectColorCache colors;
   private ThreeDModelRenderer modelRenderer;
   private ThreeDRenderParams params = new ThreeDRenderParams();
   private boolean solid;
   private boolean renderNames;
+  private boolean drawModels = true;
+  private IntRasterizer raster;
+  private Arc2D.Double shieldArc = new Arc2D.Double();
+  private ArrowShape arrow = new ArrowShape()
+      .add(0, 1)
+      .add(Math.PI * 0.8, 1)
+      .add(Math.PI, 0.5)
+      .add(Math.PI * 1.2, 1);
+  private double[] arrowXs = new double[4];
+  private double[] arrowYs = new double[4];
   private Localized localized = new DefaultLocalized();
+  private long[] spriteKeys = new long[1 << SPRITE_SLOT_BITS];
+  private BufferedImage[] spriteImages = new BufferedImage[1 << SPRITE_SLOT_BITS];
+  private int spriteCount;
 
   /**
-   * Creates a new TopDownObjectRenderer that renders objects using Models from the given Context
+   * Creates a new TopDownObjectRenderer that renders objects using Models from the given HullTable
    * and using the specified RenderMode. If a Locale is provided, then object names will also be
    * rendered.
    */
-  public TopDownObjectRenderer(Context ctx, World world, RenderMode renderMode, boolean renderNames) {
-    this.ctx = ctx;
+  public TopDownObjectRenderer(HullTable hulls, World world, RenderMode renderMode, boolean renderNames) {
+    this.hulls = hulls;
     this.world = world;
+    colors = new ObjectColorCache(hulls, world, false);
     modelRenderer = new ThreeDModelRenderer();
     solid = renderMode == RenderMode.SOLID;
     params.renderMode(renderMode);
@@ -79,6 +104,23 @@ public class TopDownObjectRenderer {
     this.localized = localized;
   }
 
+  /**
+   * Sets whether objects may be drawn as Models. If false, objects are always drawn as simple
+   * shapes, which is much cheaper.
+   */
+  public void setDrawModels(boolean drawModels) {
+    this.drawModels = drawModels;
+  }
+
+  /**
+   * Sets an IntRasterizer to draw simple shapes with, instead of the Graphics2D context. The
+   * rasterizer must already have been started on the context passed to render(). Set to null to
+   * draw everything with Java2D.
+   */
+  public void setRasterizer(IntRasterizer raster) {
+    this.raster = raster;
+  }
+
   /**
    * Renders an ArtemisObject at the given location and within the indicated radius. 
    */
@@ -108,12 +150,31 @@ public class TopDownObjectRenderer {
     }
   }
 
+  /**
+   * Renders a single glyph standing in for count objects of the same type that are too close
+   * together to tell apart. The glyph is a filled circle whose area grows with the count, up to the
+   * size of the cell.
+   */
+  public void renderCluster(Graphics2D g, double x, double y, double r, ArtemisObject obj,
+      ArtemisPlayer player, int count, int cellSize) {
+    Color color = colors.get(obj, player);
+    double cr = Math.min(r * Math.sqrt(count), cellSize * 0.5);
+
+    if (raster != null) {
+      raster.setColor(color);
+      raster.fillCircle(x, y, cr);
+    } else {
+      g.setColor(color);
+      g.fill(new Ellipse2D.Double(x - cr, y - cr, cr * 2, cr * 2));
+    }
+  }
+
   /**
    * Renders the object itself, without shields.
    */
   private void renderObject(Graphics2D g, double x, double y, double r, float heading,
       ArtemisObject obj, ArtemisPlayer player, int scanLevel) {
-    Color color = Util.getObjectColor(ctx, world, obj, player, false);
+    Color color = colors.get(obj, player);
     ObjectType type = obj.getType();
 
     if (type == ObjectType.BASE) {
@@ -123,13 +184,16 @@ public class TopDownObjectRenderer {
     Vessel vessel = null;
     Model model = null;
 
-    if (scanLevel > 0 && r >= MODEL_RADIUS_THRESHOLD && ctx != null) {
+    if (drawModels && scanLevel > 0 && r >= MODEL_RADIUS_THRESHOLD && hulls != null) {
       if (obj instanceof ArtemisShielded) {
-        ArtemisShielded shielded = (ArtemisShielded) obj;
-        vessel = shielded.getVessel(ctx);
-        model = vessel.getModel();
+        HullTable.Hull hull = hulls.lookup((ArtemisShielded) obj);
+
+        if (hull != null) {
+          vessel = hull.getVessel();
+          model = hull.getModel();
+        }
       } else {
-        model = obj.getModel(ctx);
+        model = hulls.getModel(obj);
       }
     }
 
@@ -150,10 +214,12 @@ public class TopDownObjectRenderer {
       }
 
       if (vessel != null) {
-        modelRenderer.render(g, vessel, params, null);
+        modelRenderer.render(g, vessel, model, params, null);
       } else {
         modelRenderer.render(g, model, params, null);
       }
+    } else if (raster != null) {
+      r = rasterizeShape(type, x, y, r, heading, color);
     } else {
       g.setColor(color);
 
@@ -163,29 +229,17 @@ public class TopDownObjectRenderer {
         g.draw(new Ellipse2D.Double(x - r, y - r, r * 2, r * 2));
       } else if (type == ObjectType.NEBULA) {
         r *= NEBULA_SCALE;
-        g.fill(new Ellipse2D.Double(x - r, y - r, r * 2, r * 2));
+        drawSprite(g, SPRITE_NEBULA, x, y, r, color);
       } else if (type == ObjectType.BLACK_HOLE) {
         r *= BLACK_HOLE_SCALE;
-        double dr = r / BLACK_HOLE_RINGS;
-
-        for (int i = 0; i < BLACK_HOLE_RINGS; i++) {
-          double rn = (i + 1) * dr;
-          g.setStroke(BLACK_HOLE_STROKES[i]);
-          g.draw(new Ellipse2D.Double(x - rn, y - rn, rn * 2, rn * 2));
-        }
+        drawSprite(g, SPRITE_BLACK_HOLE, x, y, r, color);
       } else if (type == ObjectType.TORPEDO) {
         r = 2;
         g.fill(new Ellipse2D.Double(x - r, y - r, r * 2, r * 2));
       } else {
         if (!Float.isNaN(heading)) {
           r = Math.max(r, MIN_ARROW_RADIUS);
-          PolygonBuilder builder = new PolygonBuilder(x, y);
-          builder
-            .add(heading, r)
-            .add(heading + Math.PI * 0.8, r)
-            .add(heading + Math.PI, r * 0.5)
-            .add(heading + Math.PI * 1.2, r);
-          g.fill(builder.toPath());
+          g.fill(arrow.place(x, y, heading, r).getPath());
         } else {
           g.fill(new Ellipse2D.Double(x - r, y - r, r * 2, r * 2));
         }
@@ -213,6 +267,130 @@ public class TopDownObjectRenderer {
     }
   }
 
+  /**
+   * Draws the simple shape for an object with the IntRasterizer, and returns the radius that was
+   * used. Stroke widths and dashes aren't supported, so bases are drawn with a double outline and
+   * black holes with solid rings.
+   */
+  private double rasterizeShape(ObjectType type, double x, double y, double r, float heading,
+      Color color) {
+    raster.setColor(color);
+
+    if (type == ObjectType.BASE) {
+      r = MIN_ARROW_RADIUS;
+      raster.drawCircle(x, y, r);
+      raster.drawCircle(x, y, r - 1);
+    } else if (type == ObjectType.NEBULA) {
+      r *= NEBULA_SCALE;
+      raster.fillCircle(x, y, r);
+    } else if (type == ObjectType.BLACK_HOLE) {
+      r *= BLACK_HOLE_SCALE;
+      double dr = r / BLACK_HOLE_RINGS;
+
+      for (int i = 0; i < BLACK_HOLE_RINGS; i++) {
+        raster.drawCircle(x, y, (i + 1) * dr);
+      }
+    } else if (type == ObjectType.TORPEDO) {
+      r = 2;
+      raster.fillCircle(x, y, r);
+    } else if (!Float.isNaN(heading)) {
+      r = Math.max(r, MIN_ARROW_RADIUS);
+      int count = arrow.place(x, y, heading, r).getVertices(arrowXs, arrowYs);
+      raster.fillPolygon(arrowXs, arrowYs, count);
+    } else {
+      raster.fillCircle(x, y, r);
+    }
+
+    return r;
+  }
+
+  /**
+   * Draws a nebula or black hole from the sprite cache, painting the sprite first if needed. These
+   * are the largest shapes on the map and look the same every frame, so blitting them is much
+   * cheaper than filling or stroking them again. Sprites too large to be worth caching are drawn
+   * directly.
+   */
+  private void drawSprite(Graphics2D g, int kind, double x, double y, double r, Color color) {
+    int ir = (int) Math.round(r);
+
+    if (ir > MAX_SPRITE_RADIUS) {
+      paintSprite(g, kind, x, y, r);
+      return;
+    }
+
+    boolean antialias = RenderingHints.VALUE_ANTIALIAS_ON.equals(g.getRenderingHint(RenderingHints.KEY_ANTIALIASING));
+    long key = (long) kind << 56 | (antialias ? 1L : 0L) << 55 | (long) ir << 32 | color.getRGB() & 0xffffffffL;
+    int slot = findSpriteSlot(key);
+    BufferedImage sprite = spriteImages[slot];
+
+    if (sprite != null) {
+      SPRITE_CACHE.hit();
+    } else {
+      SPRITE_CACHE.miss();
+
+      if (spriteCount == MAX_SPRITES) {
+        // Only a handful of sprites are in use at a time, so start over rather than track usage
+        Arrays.fill(spriteImages, null);
+        spriteCount = 0;
+        slot = findSpriteSlot(key);
+      }
+
+      int size = ir * 2 + 2;
+      sprite = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+      Graphics2D sg = sprite.createGraphics();
+
+      if (antialias) {
+        sg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      }
+
+      sg.setColor(color);
+      paintSprite(sg, kind, ir + 1, ir + 1, ir);
+      sg.dispose();
+      spriteKeys[slot] = key;
+      spriteImages[slot] = sprite;
+      spriteCount++;
+    }
+
+    g.drawImage(sprite, (int) Math.round(x) - ir - 1, (int) Math.round(y) - ir - 1, null);
+  }
+
+  /**
+   * Returns the slot in the sprite cache that holds the sprite with the given key, or the empty
+   * slot where it belongs if it isn't cached. Collisions are resolved by probing the following
+   * slots.
+   */
+  private int findSpriteSlot(long key) {
+    int mask = spriteImages.length - 1;
+    int slot = (int) (key ^ key >>> 32) * 0x9e3779b9 >>> (32 - SPRITE_SLOT_BITS);
+
+    while (spriteImages[slot] != null && spriteKeys[slot] != key) {
+      slot = slot + 1 & mask;
+    }
+
+    return slot;
+  }
+
+  /**
+   * Paints a nebula or black hole with the given center and radius in the current color.
+   */
+  private static void paintSprite(Graphics2D g, int kind, double x, double y, double r) {
+    if (kind == SPRITE_NEBULA) {
+      g.fill(new Ellipse2D.Double(x - r, y - r, r * 2, r * 2));
+      return;
+    }
+
+    Stroke stroke = g.getStroke();
+    double dr = r / BLACK_HOLE_RINGS;
+
+    for (int i = 0; i < BLACK_HOLE_RINGS; i++) {
+      double rn = (i + 1) * dr;
+      g.setStroke(BLACK_HOLE_STROKES[i]);
+      g.draw(new Ellipse2D.Double(x - rn, y - rn, rn * 2, rn * 2));
+    }
+
+    g.setStroke(stroke);
+  }
+
   public String getDisplayName(ArtemisObject obj, ArtemisPlayer player) {
     ObjectType type = obj.getType();
 
@@ -276,8 +454,9 @@ public class TopDownObjectRenderer {
 
     g.setColor(Util.computeShieldColor(power, max));
     double size = r * 2;
-    g.setStroke(new BasicStroke((float) (r * 0.1)));
-    g.draw(new Arc2D.Double(cx - r, cy - r, size, size, 0, 360, Arc2D.OPEN));
+    g.setStroke(Util.getStroke((float) (r * 0.1)));
+    shieldArc.setArc(cx - r, cy - r, size, size, 0, 360, Arc2D.OPEN);
+    g.draw(shieldArc);
     g.setStroke(Util.ONE_PIXEL_STROKE);
   }
 
@@ -292,11 +471,12 @@ public class TopDownObjectRenderer {
 
     g.setColor(Util.computeShieldColor(power, max));
     double size = r * 2;
-    g.setStroke(new BasicStroke((float) (r * 0.1)));
+    g.setStroke(Util.getStroke((float) (r * 0.1)));
     boolean hasHeading = !Float.isNaN(heading);
     float h = Angle.PROTOCOL.toRadians(hasHeading ? heading : 0);
     float start = h * 180 / Angle.PI - 85;
-    g.draw(new Arc2D.Double(cx - r, cy - r, size, size, start, 170, Arc2D.OPEN));
+    shieldArc.setArc(cx - r, cy - r, size, size, start, 170, Arc2D.OPEN);
+    g.draw(shieldArc);
     g.setStroke(Util.ONE_PIXEL_STROKE);
   }
 
@@ -4,12 +4,10 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Stroke;
 
-import com.walkertribe.ian.Context;
+import com.walkertribe.artemisdisplay.HullTable;
 import com.walkertribe.ian.enums.FactionAttribute;
 import com.walkertribe.ian.enums.ObjectType;
 import com.walkertribe.ian.util.BoolState;
-import com.walkertribe.ian.vesseldata.Faction;
-import com.walkertribe.ian.vesseldata.Vessel;
 import com.walkertribe.ian.world.ArtemisBase;
 import com.walkertribe.ian.world.ArtemisMesh;
 import com.walkertribe.ian.world.ArtemisNebula;
@@ -50,6 +48,16 @@ public class Util {
   private static final Color ASTEROID_COLOR = new Color(0.59f, 0.25f, 0f);
   private static final Color CREATURE_COLOR = Color.MAGENTA;
   private static final Color DRONE_COLOR = Color.YELLOW;
+  private static final int SHIELD_PALETTE_SIZE = 256;
+  private static final Color[] SHIELD_PALETTE = new Color[SHIELD_PALETTE_SIZE];
+  private static final float STROKE_STEPS_PER_PIXEL = 2;
+  private static final Stroke[] STROKES = new Stroke[256];
+
+  static {
+    for (int i = 0; i < SHIELD_PALETTE_SIZE; i++) {
+      SHIELD_PALETTE[i] = shieldHue((float) i / (SHIELD_PALETTE_SIZE - 1));
+    }
+  }
 
   private Util() {
     // prevent instantiation
@@ -58,11 +66,10 @@ public class Util {
   /**
    * Returns the Color for the given object.
    */
-  public static Color getObjectColor(Context ctx, World world, ArtemisObject obj, ArtemisPlayer player, boolean solid) {
+  public static Color getObjectColor(HullTable hulls, World world, ArtemisObject obj, ArtemisPlayer player, boolean solid) {
     ObjectType type = obj.getType();
     byte playerSide = player != null ? player.getSide() : -1;
-    Vessel vessel;
-    Faction faction;
+    HullTable.Hull hull;
 
     switch (type) {
     case PLAYER_SHIP:
@@ -75,15 +82,14 @@ public class Util {
         return SURRENDERED_COLOR;
       }
 
-      vessel = ctx != null ? npc.getVessel(ctx) : null;
-      faction = vessel != null ? vessel.getFaction() : null;
+      hull = hulls != null ? hulls.lookup(npc) : null;
       BoolState friendly = isFriendly(npc, player);
 
       if (npc.getScanLevel(playerSide) < 1 && !friendly.getBooleanValue()) {
         return UNKNOWN_COLOR;
       }
 
-      if (faction != null && faction.is(FactionAttribute.BIOMECH)) {
+      if (hull != null && hull.is(FactionAttribute.BIOMECH)) {
         return world != null && world.getBiomechRage() > 0 ? ENEMY_COLOR : BIOMECH_COLOR;
       }
 
@@ -173,11 +179,49 @@ public class Util {
     boolean known = !Float.isNaN(power) && !Float.isNaN(max);
     float perc = known ? power / max : Float.NaN;
 
-    if (!Float.isNaN(perc)) {
-      return Color.getHSBColor(perc * (float) PI / 12, 1, 1);
+    if (Float.isNaN(perc)) {
+      return Color.LIGHT_GRAY;
+    }
+
+    if (perc >= 0 && perc <= 1) {
+      return SHIELD_PALETTE[Math.round(perc * (SHIELD_PALETTE_SIZE - 1))];
+    }
+
+    return shieldHue(perc); // overcharged; not worth a palette entry
+  }
+
+  /**
+   * Computes the shield Color for the given fraction of full strength.
+   */
+  private static Color shieldHue(float perc) {
+    return Color.getHSBColor(perc * PI / 12, 1, 1);
+  }
+
+  /**
+   * Returns a solid BasicStroke of approximately the given width. Widths are rounded to the nearest
+   * half pixel, and the Strokes for common widths are cached, so this can be called every frame
+   * without allocating. As with BasicStroke, a negative width throws an IllegalArgumentException;
+   * so does NaN.
+   */
+  public static Stroke getStroke(float width) {
+    if (!(width >= 0)) {
+      throw new IllegalArgumentException("Invalid stroke width: " + width);
+    }
+
+    int step = Math.round(width * STROKE_STEPS_PER_PIXEL);
+
+    if (step >= STROKES.length) {
+      return new BasicStroke(step / STROKE_STEPS_PER_PIXEL);
+    }
+
+    Stroke stroke = STROKES[step];
+
+    if (stroke == null) {
+      stroke = new BasicStroke(step / STROKE_STEPS_PER_PIXEL);
+      STROKES[step] = stroke; // benign race; BasicStrokes are immutable
     }
 
-    return Color.LIGHT_GRAY;
+    return stroke;
   }
 
 }
@@ -0,0 +1,419 @@
+package com.walkertribe.artemisdisplay.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import com.walkertribe.ian.enums.ObjectType;
+import com.walkertribe.ian.enums.Origin;
+import com.walkertribe.ian.iface.ThreadedArtemisNetworkInterface;
+import com.walkertribe.ian.protocol.ArtemisPacket;
+import com.walkertribe.ian.protocol.core.comm.CommsIncomingPacket;
+import com.walkertribe.ian.protocol.core.setup.VersionPacket;
+import com.walkertribe.ian.protocol.core.setup.WelcomePacket;
+import com.walkertribe.ian.protocol.core.world.DeleteObjectPacket;
+import com.walkertribe.ian.protocol.core.world.ObjectUpdatePacket;
+import com.walkertribe.ian.util.Version;
+import com.walkertribe.ian.world.Artemis;
+import com.walkertribe.ian.world.ArtemisBase;
+import com.walkertribe.ian.world.ArtemisNpc;
+import com.walkertribe.ian.world.ArtemisPlayer;
+import com.walkertribe.ian.world.ArtemisTorpedo;
+import com.walkertribe.ian.world.BaseArtemisOrientable;
+
+/**
+ * <p>
+ * Generates synthetic game traffic for LoadServer, using IAN's protocol classes to write the
+ * packets. Each client gets its own simulation: the player ship (ship index 0) sits at the center
+ * of the map, surrounded by NPC ships, bases and torpedoes that move along their headings. Objects
+ * are created and deleted to keep each kind at the density the script asks for, and torpedoes
+ * expire after a few seconds and are replaced with new ones, so the client also sees a steady
+ * stream of new object IDs and deletions.
+ * </p>
+ * <p>
+ * The script sets how many objects of each kind exist, how many times per second each one is
+ * updated, and how many comms messages are sent per second. A "wait" line holds the current
+ * settings for the given number of seconds; the script ends after the last wait. If there are
+ * settings after the last wait, they're held forever. Blank lines and lines starting with # are
+ * ignored.
+ * </p>
+ * <pre>
+ * # 1,000 ships for a minute, then 5,000 ships and a barrage of torpedoes
+ * npc 1000 5
+ * base 40 1
+ * comms 0.5
+ * wait 60
+ * npc 5000 5
+ * torpedo 500 10
+ * wait 120
+ * </pre>
+ * @author rjwut
+ */
+public class LoadGenerator {
+  private static final long TICK_MS = 50;
+  private static final int MAX_OBJECTS_PER_PACKET = 64;
+  private static final int PLAYER_ID = 1;
+  private static final byte PLAYER_SIDE = 2;
+  private static final byte ENEMY_SIDE = 1;
+  private static final float TORPEDO_LIFETIME_MS = 8000;
+  private static final String PROTOCOL_VERSION = "2.7.0";
+
+  /**
+   * The kinds of objects that can be generated.
+   */
+  private enum Kind {
+    NPC(ObjectType.NPC_SHIP, 0.1f),
+    BASE(ObjectType.BASE, 0),
+    TORPEDO(ObjectType.TORPEDO, 0.6f);
+
+    private ObjectType type;
+    private float speed; // map units per millisecond
+
+    private Kind(ObjectType type, float speed) {
+      this.type = type;
+      this.speed = speed;
+    }
+  }
+
+  private static final Kind[] KINDS = Kind.values();
+
+  /**
+   * A span of the script, with the settings to hold during it.
+   */
+  private static class Phase {
+    private float seconds;
+    private int[] counts = new int[KINDS.length];
+    private float[] rates = new float[KINDS.length];
+    private float commsRate;
+
+    private Phase copy() {
+      Phase phase = new Phase();
+      phase.counts = counts.clone();
+      phase.rates = rates.clone();
+      phase.commsRate = commsRate;
+      return phase;
+    }
+  }
+
+  /**
+   * Reads a generator script.
+   */
+  public static LoadGenerator read(File file) throws IOException {
+    List<Phase> phases = new ArrayList<>();
+    Phase phase = new Phase();
+    boolean pending = false;
+
+    for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+      line = line.trim();
+
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+
+      String[] parts = line.split("\\s+");
+      String keyword = parts[0].toLowerCase(Locale.ROOT);
+
+      try {
+        if (keyword.equals("wait") && parts.length == 2) {
+          phase.seconds = parsePositive(parts[1]);
+          phases.add(phase);
+          phase = phase.copy();
+          pending = false;
+        } else if (keyword.equals("comms") && parts.length == 2) {
+          phase.commsRate = parsePositive(parts[1]);
+          pending = true;
+        } else if (parts.length == 3) {
+          Kind kind = Kind.valueOf(keyword.toUpperCase(Locale.ROOT));
+          phase.counts[kind.ordinal()] = (int) parsePositive(parts[1]);
+          phase.rates[kind.ordinal()] = parsePositive(parts[2]);
+          pending = true;
+        } else {
+          throw new IllegalArgumentException();
+        }
+      } catch (IllegalArgumentException ex) {
+        throw new IllegalArgumentException("Invalid script line: " + line);
+      }
+    }
+
+    if (pending) {
+      phase.seconds = -1;
+      phases.add(phase);
+    }
+
+    if (phases.isEmpty()) {
+      throw new IllegalArgumentException("Script is empty: " + file);
+    }
+
+    return new LoadGenerator(phases);
+  }
+
+  private static float parsePositive(String str) {
+    float value = Float.parseFloat(str);
+
+    if (value < 0 || Float.isNaN(value) || Float.isInfinite(value)) {
+      throw new IllegalArgumentException();
+    }
+
+    return value;
+  }
+
+  private List<Phase> phases;
+
+  private LoadGenerator(List<Phase> phases) {
+    this.phases = phases;
+  }
+
+  /**
+   * Returns true if the script hasn't ended at the given number of seconds after the server
+   * started.
+   */
+  boolean isRunning(float elapsed) {
+    return getPhase(elapsed) != null;
+  }
+
+  /**
+   * Returns the phase for the given number of seconds after the server started, or null if the
+   * script has ended.
+   */
+  private Phase getPhase(float elapsed) {
+    for (Phase phase : phases) {
+      if (phase.seconds < 0 || elapsed < phase.seconds) {
+        return phase;
+      }
+
+      elapsed -= phase.seconds;
+    }
+
+    return null;
+  }
+
+  /**
+   * Runs a simulation for the given client until it disconnects or the script ends.
+   */
+  void serve(Socket client, LoadServer server) throws IOException {
+    ThreadedArtemisNetworkInterface iface = new ThreadedArtemisNetworkInterface(client, Origin.CLIENT);
+
+    try {
+      iface.start();
+      new Session(iface, server).run();
+    } finally {
+      iface.stop();
+    }
+  }
+
+  /**
+   * The simulation for a single client.
+   */
+  private class Session {
+    private ThreadedArtemisNetworkInterface iface;
+    private LoadServer server;
+    private Random random = new Random();
+    private int nextId = PLAYER_ID + 1;
+    private ArtemisPlayer player;
+    private List<List<BaseArtemisOrientable>> objects = new ArrayList<>();
+    private List<List<Long>> born = new ArrayList<>();
+    private int[] cursors = new int[KINDS.length];
+    private float[] updateBudgets = new float[KINDS.length];
+    private float commsBudget;
+    private int commsCount;
+    private ObjectUpdatePacket pkt;
+    private int pktSize;
+
+    private Session(ThreadedArtemisNetworkInterface iface, LoadServer server) {
+      this.iface = iface;
+      this.server = server;
+
+      for (int i = 0; i < KINDS.length; i++) {
+        objects.add(new ArrayList<>());
+        born.add(new ArrayList<>());
+      }
+    }
+
+    /**
+     * Sends the handshake and the player ship, then updates the simulation every tick.
+     */
+    private void run() {
+      send(new WelcomePacket());
+      send(new VersionPacket(new Version(PROTOCOL_VERSION)));
+      player = new ArtemisPlayer(PLAYER_ID, 0);
+      player.setShipIndex((byte) 0);
+      player.setSide(PLAYER_SIDE);
+      player.setName("Artemis");
+      player.setX(Artemis.MAP_SIZE / 2);
+      player.setY(0);
+      player.setZ(Artemis.MAP_SIZE / 2);
+      player.setHeading(0);
+      long last = System.currentTimeMillis();
+
+      while (iface.isConnected()) {
+        long now = System.currentTimeMillis();
+        Phase phase = getPhase(server.getElapsedSeconds());
+
+        if (phase == null) {
+          return;
+        }
+
+        tick(phase, now, now - last);
+        last = now;
+
+        try {
+          Thread.sleep(Math.max(TICK_MS - (System.currentTimeMillis() - now), 1));
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+
+    /**
+     * Advances the simulation by the given number of milliseconds and sends the resulting updates.
+     */
+    private void tick(Phase phase, long now, long elapsedMs) {
+      addObject(player);
+
+      for (Kind kind : KINDS) {
+        int k = kind.ordinal();
+        List<BaseArtemisOrientable> list = objects.get(k);
+        List<Long> times = born.get(k);
+
+        if (kind == Kind.TORPEDO) {
+          for (int i = list.size() - 1; i >= 0; i--) {
+            if (now - times.get(i) > TORPEDO_LIFETIME_MS) {
+              remove(kind, i);
+            }
+          }
+        }
+
+        while (list.size() > phase.counts[k]) {
+          remove(kind, list.size() - 1);
+        }
+
+        while (list.size() < phase.counts[k]) {
+          BaseArtemisOrientable obj = create(kind);
+          list.add(obj);
+          times.add(now);
+          addObject(obj);
+        }
+
+        updateBudgets[k] += list.size() * phase.rates[k] * elapsedMs / 1000f;
+        int updates = Math.min((int) updateBudgets[k], list.size());
+        updateBudgets[k] -= updates;
+
+        for (int i = 0; i < updates; i++) {
+          cursors[k] = (cursors[k] + 1) % list.size();
+          BaseArtemisOrientable obj = list.get(cursors[k]);
+          move(obj, kind.speed * 1000 / phase.rates[k]); // distance covered since its last update
+          addObject(obj);
+        }
+      }
+
+      flush();
+      commsBudget += phase.commsRate * elapsedMs / 1000f;
+
+      while (commsBudget >= 1) {
+        commsBudget--;
+        commsCount++;
+        send(new CommsIncomingPacket(0, "DS" + (commsCount % 10 + 1), "Load test message " + commsCount));
+      }
+    }
+
+    /**
+     * Creates a new object of the given kind at a random position.
+     */
+    private BaseArtemisOrientable create(Kind kind) {
+      int id = nextId++;
+      BaseArtemisOrientable obj;
+
+      if (kind == Kind.BASE) {
+        ArtemisBase base = new ArtemisBase(id, 0);
+        base.setName("DS" + id);
+        base.setSide(PLAYER_SIDE);
+        base.setShieldsFront(1000);
+        base.setShieldsFrontMax(1000);
+        obj = base;
+      } else if (kind == Kind.TORPEDO) {
+        obj = new ArtemisTorpedo(id, 0);
+      } else {
+        ArtemisNpc npc = new ArtemisNpc(id, 0);
+        boolean enemy = random.nextBoolean();
+        npc.setName((enemy ? "K" : "S") + id);
+        npc.setSide(enemy ? ENEMY_SIDE : PLAYER_SIDE);
+        npc.setShieldsFront(random.nextFloat() * 80);
+        npc.setShieldsFrontMax(80);
+        npc.setShieldsRear(random.nextFloat() * 80);
+        npc.setShieldsRearMax(80);
+        obj = npc;
+      }
+
+      obj.setX(random.nextFloat() * Artemis.MAP_SIZE);
+      obj.setY(0);
+      obj.setZ(random.nextFloat() * Artemis.MAP_SIZE);
+      obj.setHeading((float) ((random.nextFloat() * 2 - 1) * Math.PI));
+      return obj;
+    }
+
+    /**
+     * Deletes the object at the given index in the list for the given kind.
+     */
+    private void remove(Kind kind, int index) {
+      int k = kind.ordinal();
+      List<BaseArtemisOrientable> list = objects.get(k);
+      int last = list.size() - 1;
+      BaseArtemisOrientable obj = list.get(index);
+      list.set(index, list.get(last));
+      list.remove(last);
+      born.get(k).set(index, born.get(k).get(last));
+      born.get(k).remove(last);
+      send(new DeleteObjectPacket(kind.type, obj.getId()));
+    }
+
+    /**
+     * Moves the given object the given distance along its heading, wrapping around the map edges.
+     */
+    private void move(BaseArtemisOrientable obj, float distance) {
+      float x = obj.getX() + (float) Math.sin(obj.getHeading()) * distance;
+      float z = obj.getZ() + (float) Math.cos(obj.getHeading()) * distance;
+      obj.setX((x + Artemis.MAP_SIZE) % Artemis.MAP_SIZE);
+      obj.setZ((z + Artemis.MAP_SIZE) % Artemis.MAP_SIZE);
+    }
+
+    /**
+     * Adds an object to the current update packet, sending it first if it's full.
+     */
+    private void addObject(BaseArtemisOrientable obj) {
+      if (pktSize == MAX_OBJECTS_PER_PACKET) {
+        flush();
+      }
+
+      if (pkt == null) {
+        pkt = new ObjectUpdatePacket();
+      }
+
+      pkt.addObject(obj);
+      pktSize++;
+      server.countObjects(1);
+    }
+
+    /**
+     * Sends the current update packet, if it has anything in it.
+     */
+    private void flush() {
+      if (pkt != null) {
+        send(pkt);
+        pkt = null;
+        pktSize = 0;
+      }
+    }
+
+    private void send(ArtemisPacket packet) {
+      iface.send(packet);
+      server.countPackets(1, 0);
+    }
+  }
+}
@@ -0,0 +1,363 @@
+package com.walkertribe.artemisdisplay.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.walkertribe.ian.world.Artemis;
+
+/**
+ * <p>
+ * A stand-in Artemis server for load testing. It serves any number of clients at once, so the
+ * display connects to it with --host exactly as it would to a real server. It has two modes:
+ * </p>
+ * <ul>
+ * <li>With --generate, each client gets a synthetic game whose object densities and update rates
+ * are set by a script; see LoadGenerator.</li>
+ * <li>Otherwise, each client gets its own copy of one or more recorded packet logs, played
+ * back-to-back and looped until the client disconnects or the script ends. Only the first log's
+ * handshake is sent. Looping replays the same objects with the same IDs, so it adds traffic but
+ * not objects; use --generate to raise the object count.</li>
+ * </ul>
+ * <p>
+ * When playing logs, the packet rate is controlled by a script file. Each line contains a playback
+ * speed and a number of seconds to hold it; blank lines and lines starting with # are ignored. A
+ * speed of 0 sends packets as fast as the client will accept them. The script runs on a single
+ * clock shared by all clients, and the server exits when it ends. Without a script, logs are
+ * played at --speed forever.
+ * </p>
+ * <pre>
+ * # warm up, then ramp to ten times real time
+ * 1 60
+ * 4 60
+ * 10 120
+ * </pre>
+ * <p>
+ * Usage: LoadServer [--port number] [--speed factor] [--script file] logFile [logFile...]<br>
+ * or: LoadServer [--port number] --generate scriptFile
+ * </p>
+ * @author rjwut
+ */
+public class LoadServer {
+  private static final long REPORT_INTERVAL_MS = 5000;
+  private static final long MAX_SLEEP_MS = 10;
+  private static final String USAGE = "Usage: LoadServer [--port number] [--speed factor] [--script file] "
+      + "logFile [logFile...]\n   or: LoadServer [--port number] --generate scriptFile";
+
+  // Packet types (and the subtype for ship settings) that are part of the connection handshake
+  private static final int WELCOME_TYPE = 0x6d04b3da;
+  private static final int VERSION_TYPE = 0xe548e74a;
+  private static final int SIMPLE_EVENT_TYPE = 0xf754c8fe;
+  private static final int SHIP_SETTINGS_SUBTYPE = 0x0f;
+
+  public static void main(String[] args) throws IOException {
+    int port = Artemis.DEFAULT_PORT;
+    float speed = 1;
+    File script = null;
+    File generate = null;
+    List<File> logs = new ArrayList<>();
+
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+
+      if (arg.equals("--port")) {
+        port = Integer.parseInt(args[++i]);
+      } else if (arg.equals("--speed")) {
+        speed = Float.parseFloat(args[++i]);
+      } else if (arg.equals("--script")) {
+        script = new File(args[++i]);
+      } else if (arg.equals("--generate")) {
+        generate = new File(args[++i]);
+      } else {
+        logs.add(new File(arg));
+      }
+    }
+
+    if (logs.isEmpty() == (generate == null)) {
+      System.out.println(USAGE);
+      System.exit(1);
+    }
+
+    LoadServer server;
+
+    if (generate != null) {
+      server = new LoadServer(LoadGenerator.read(generate));
+    } else {
+      server = new LoadServer(logs, script != null ? readScript(script) : new float[][] { { speed, -1 } });
+    }
+
+    server.run(port);
+  }
+
+  /**
+   * Reads a script file. Each entry in the returned array is a [speed, seconds] pair.
+   */
+  private static float[][] readScript(File file) throws IOException {
+    List<float[]> phases = new ArrayList<>();
+
+    for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+      line = line.trim();
+
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+
+      String[] parts = line.split("\\s+");
+
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Expected <speed> <seconds>; got " + line);
+      }
+
+      float phaseSpeed = Float.parseFloat(parts[0]);
+      float seconds = Float.parseFloat(parts[1]);
+
+      if (phaseSpeed < 0 || seconds <= 0) {
+        throw new IllegalArgumentException("Invalid script line: " + line);
+      }
+
+      phases.add(new float[] { phaseSpeed, seconds });
+    }
+
+    if (phases.isEmpty()) {
+      throw new IllegalArgumentException("Script is empty: " + file);
+    }
+
+    return phases.toArray(new float[phases.size()][]);
+  }
+
+  private List<File> logs;
+  private float[][] phases;
+  private LoadGenerator generator;
+  private long startTime;
+  private AtomicInteger clientCount = new AtomicInteger();
+  private AtomicLong packetCount = new AtomicLong();
+  private AtomicLong byteCount = new AtomicLong();
+  private AtomicLong objectCount = new AtomicLong();
+
+  /**
+   * Creates a LoadServer that will serve the given logs according to the given script phases. A
+   * phase duration of -1 means the phase never ends.
+   */
+  public LoadServer(List<File> logs, float[][] phases) {
+    this.logs = logs;
+    this.phases = phases;
+  }
+
+  /**
+   * Creates a LoadServer that will serve synthetic games from the given LoadGenerator.
+   */
+  public LoadServer(LoadGenerator generator) {
+    this.generator = generator;
+  }
+
+  /**
+   * Listens on the given port and serves clients until the script ends.
+   */
+  public void run(int port) throws IOException {
+    ServerSocket serverSocket = new ServerSocket(port);
+    startTime = System.currentTimeMillis();
+    Thread acceptThread = new Thread(() -> {
+      while (true) {
+        try {
+          Socket client = serverSocket.accept();
+          Runnable session = generator != null ? () -> serveGenerated(client) : () -> serve(client);
+          Thread clientThread = new Thread(session, "LoadServer-" + client.getPort());
+          clientThread.setDaemon(true);
+          clientThread.start();
+        } catch (IOException ex) {
+          break;
+        }
+      }
+    }, "LoadServer-accept");
+    acceptThread.setDaemon(true);
+    acceptThread.start();
+    System.out.println("Listening on port " + port);
+    long lastPackets = 0;
+    long lastBytes = 0;
+    long lastObjects = 0;
+
+    while (isRunning()) {
+      try {
+        Thread.sleep(REPORT_INTERVAL_MS);
+      } catch (InterruptedException ex) {
+        break;
+      }
+
+      long packets = packetCount.get();
+      long bytes = byteCount.get();
+      long objects = objectCount.get();
+      float seconds = REPORT_INTERVAL_MS / 1000f;
+      long t = (System.currentTimeMillis() - startTime) / 1000;
+
+      if (generator != null) {
+        System.out.printf("t=%ds clients=%d packets/s=%.0f updates/s=%.0f%n", t, clientCount.get(),
+            (packets - lastPackets) / seconds, (objects - lastObjects) / seconds);
+      } else {
+        System.out.printf("t=%ds speed=%.1f clients=%d packets/s=%.0f KB/s=%.1f%n", t,
+            Math.max(getSpeed(), 0), clientCount.get(), (packets - lastPackets) / seconds,
+            (bytes - lastBytes) / seconds / 1024);
+      }
+
+      lastPackets = packets;
+      lastBytes = bytes;
+      lastObjects = objects;
+    }
+
+    serverSocket.close();
+    System.out.println("Script complete; sent " + packetCount.get() + " packets");
+  }
+
+  /**
+   * Returns the number of seconds since the server started; the script runs on this clock.
+   */
+  float getElapsedSeconds() {
+    return (System.currentTimeMillis() - startTime) / 1000f;
+  }
+
+  /**
+   * Adds to the packet and byte counts in the server's report.
+   */
+  void countPackets(long packets, long bytes) {
+    packetCount.addAndGet(packets);
+    byteCount.addAndGet(bytes);
+  }
+
+  /**
+   * Adds to the object update count in the server's report.
+   */
+  void countObjects(long objects) {
+    objectCount.addAndGet(objects);
+  }
+
+  /**
+   * Returns false once the script has ended.
+   */
+  private boolean isRunning() {
+    return generator != null ? generator.isRunning(getElapsedSeconds()) : getSpeed() >= 0;
+  }
+
+  /**
+   * Returns the playback speed for the current point in the script, or -1 if the script has ended.
+   */
+  private float getSpeed() {
+    float elapsed = getElapsedSeconds();
+
+    for (float[] phase : phases) {
+      if (phase[1] < 0 || elapsed < phase[1]) {
+        return phase[0];
+      }
+
+      elapsed -= phase[1];
+    }
+
+    return -1;
+  }
+
+  /**
+   * Runs a generated game for the given client until it disconnects or the script ends.
+   */
+  private void serveGenerated(Socket client) {
+    clientCount.incrementAndGet();
+
+    try {
+      generator.serve(client, this);
+    } catch (IOException ex) {
+      // client went away
+    } finally {
+      clientCount.decrementAndGet();
+    }
+  }
+
+  /**
+   * Plays the logs to the given client until it disconnects or the script ends. Playback follows a
+   * virtual clock which advances at the current script speed. Only the first log's handshake is
+   * sent, since a real server only sends one per connection.
+   */
+  private void serve(Socket client) {
+    clientCount.incrementAndGet();
+
+    try (Socket socket = client) {
+      ReplayServer.Drainer drainer = new ReplayServer.Drainer(socket.getInputStream());
+      drainer.start();
+      OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+      double virtualTime = 0;
+      long offset = 0;
+      long lastNanos = System.nanoTime();
+      boolean firstLog = true;
+
+      while (drainer.isAlive()) {
+        for (File log : logs) {
+          try (PacketLog.Reader reader = new PacketLog.Reader(log)) {
+            PacketLog.Record record;
+            long end = offset;
+
+            while ((record = reader.next()) != null) {
+              long due = offset + record.getTime();
+              end = due;
+
+              while (true) {
+                long now = System.nanoTime();
+                float speed = getSpeed();
+
+                if (speed < 0 || !drainer.isAlive()) {
+                  return;
+                }
+
+                virtualTime += (now - lastNanos) / 1e6 * speed;
+                lastNanos = now;
+
+                if (speed == 0 || virtualTime >= due) {
+                  virtualTime = Math.max(virtualTime, due);
+                  break;
+                }
+
+                out.flush();
+                double wait = Math.min((due - virtualTime) / speed, MAX_SLEEP_MS);
+                Thread.sleep(Math.max((long) wait, 1));
+              }
+
+              byte[] bytes = record.getBytes();
+
+              if (firstLog || !isHandshake(bytes)) {
+                out.write(bytes);
+                countPackets(1, bytes.length);
+              }
+            }
+
+            offset = end;
+          }
+
+          firstLog = false;
+        }
+      }
+    } catch (IOException | InterruptedException ex) {
+      // client went away
+    } finally {
+      clientCount.decrementAndGet();
+    }
+  }
+
+  /**
+   * Returns true if the given packet is part of the handshake a server sends when a client
+   * connects.
+   */
+  private static boolean isHandshake(byte[] bytes) {
+    int type = PacketFramer.getPacketType(bytes);
+
+    if (type == WELCOME_TYPE || type == VERSION_TYPE) {
+      return true;
+    }
+
+    return type == SIMPLE_EVENT_TYPE && bytes.length >= 28
+        && PacketFramer.getPacketSubtype(bytes) == SHIP_SETTINGS_SUBTYPE;
+  }
+}
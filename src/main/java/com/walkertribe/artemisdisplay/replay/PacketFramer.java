@@ -0,0 +1,106 @@
+package com.walkertribe.artemisdisplay.replay;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Splits a raw Artemis protocol stream into individual packets without parsing them. Every packet
+ * starts with a little-endian header: the magic number 0xdeadbeef, followed by the total length of
+ * the packet in bytes (including the header). That's all we need to know to find where the next
+ * packet begins.
+ * @author rjwut
+ */
+public class PacketFramer {
+  private static final int HEADER_MAGIC = 0xdeadbeef;
+  static final int MIN_PACKET_LENGTH = 24;
+  static final int MAX_PACKET_LENGTH = 1 << 20;
+
+  private DataInputStream in;
+  private byte[] buffer = new byte[4096];
+  private int length;
+
+  /**
+   * Creates a PacketFramer that reads from the given stream.
+   */
+  public PacketFramer(InputStream in) {
+    this.in = new DataInputStream(in);
+  }
+
+  /**
+   * Reads the next packet. Returns false if the stream ended cleanly between packets; otherwise,
+   * the packet can be retrieved with getBuffer() and getLength(). The buffer is reused, so its
+   * contents are only valid until the next invocation.
+   */
+  public boolean next() throws IOException {
+    int magic;
+
+    try {
+      magic = Integer.reverseBytes(in.readInt());
+    } catch (EOFException ex) {
+      return false;
+    }
+
+    if (magic != HEADER_MAGIC) {
+      throw new IOException("Invalid packet header: " + Integer.toHexString(magic));
+    }
+
+    length = Integer.reverseBytes(in.readInt());
+
+    if (length < MIN_PACKET_LENGTH || length > MAX_PACKET_LENGTH) {
+      throw new IOException("Invalid packet length: " + length);
+    }
+
+    if (buffer.length < length) {
+      buffer = new byte[Math.max(length, buffer.length * 2)];
+    }
+
+    writeIntLE(buffer, 0, magic);
+    writeIntLE(buffer, 4, length);
+    in.readFully(buffer, 8, length - 8);
+    return true;
+  }
+
+  /**
+   * Returns the buffer containing the last packet read.
+   */
+  public byte[] getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * Returns the length of the last packet read.
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Returns the packet type value from the given packet bytes.
+   */
+  public static int getPacketType(byte[] bytes) {
+    return readIntLE(bytes, 20);
+  }
+
+  /**
+   * Returns the value following the packet type in the given packet bytes, which packet types
+   * that group several kinds of packets use as a subtype. The packet must be at least 28 bytes
+   * long.
+   */
+  public static int getPacketSubtype(byte[] bytes) {
+    return readIntLE(bytes, 24);
+  }
+
+  private static void writeIntLE(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) value;
+    bytes[offset + 1] = (byte) (value >>> 8);
+    bytes[offset + 2] = (byte) (value >>> 16);
+    bytes[offset + 3] = (byte) (value >>> 24);
+  }
+
+  private static int readIntLE(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8 |
+        (bytes[offset + 2] & 0xff) << 16 | (bytes[offset + 3] & 0xff) << 24;
+  }
+}
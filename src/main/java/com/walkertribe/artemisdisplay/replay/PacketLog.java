@@ -0,0 +1,231 @@
+package com.walkertribe.artemisdisplay.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>
+ * Reads and writes packet log files. A packet log is a gzipped stream containing a header followed
+ * by one record for each packet the server sent:
+ * </p>
+ * <ul>
+ * <li>Header: the magic number, a version number, and the time the recording started, in
+ * milliseconds since the epoch.</li>
+ * <li>Record: the number of milliseconds since the previous record, the length of the packet in
+ * bytes, then the packet bytes exactly as they came over the wire.</li>
+ * </ul>
+ * <p>
+ * The delta and length values are written as unsigned variable-length integers: seven bits per
+ * byte, least significant group first, with the high bit set on all but the last byte.
+ * </p>
+ * @author rjwut
+ */
+public final class PacketLog {
+  private static final int MAGIC = 0x4144504c; // "ADPL"
+  private static final int VERSION = 1;
+
+  private PacketLog() {
+    // prevent instantiation
+  }
+
+  /**
+   * A single packet read from a log.
+   */
+  public static class Record {
+    private long time;
+    private byte[] bytes;
+
+    private Record(long time, byte[] bytes) {
+      this.time = time;
+      this.bytes = bytes;
+    }
+
+    /**
+     * The number of milliseconds after the start of the recording that this packet was received.
+     */
+    public long getTime() {
+      return time;
+    }
+
+    /**
+     * The raw bytes of the packet, including its header.
+     */
+    public byte[] getBytes() {
+      return bytes;
+    }
+  }
+
+  /**
+   * Writes packets to a log file.
+   */
+  public static class Writer implements Closeable {
+    private DataOutputStream out;
+    private long startTime;
+    private long lastTime;
+
+    /**
+     * Creates a new log file and writes its header.
+     */
+    public Writer(File file) throws IOException {
+      OutputStream fileOut = new BufferedOutputStream(new FileOutputStream(file));
+      out = new DataOutputStream(new GZIPOutputStream(fileOut, true));
+      startTime = System.currentTimeMillis();
+      out.writeInt(MAGIC);
+      out.writeByte(VERSION);
+      out.writeLong(startTime);
+    }
+
+    /**
+     * Writes a packet to the log, timestamped with the current time.
+     */
+    public void write(byte[] bytes, int length) throws IOException {
+      long now = System.currentTimeMillis() - startTime;
+      writeVarInt(Math.max(now - lastTime, 0));
+      writeVarInt(length);
+      out.write(bytes, 0, length);
+      lastTime = Math.max(now, lastTime);
+    }
+
+    /**
+     * Flushes any buffered records to disk, so that they survive if the process is killed.
+     */
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.close();
+    }
+
+    private void writeVarInt(long value) throws IOException {
+      while ((value & ~0x7fL) != 0) {
+        out.writeByte((int) (value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+
+      out.writeByte((int) value);
+    }
+  }
+
+  /**
+   * Reads packets from a log file.
+   */
+  public static class Reader implements Closeable {
+    private DataInputStream in;
+    private long startTime;
+    private long time;
+
+    /**
+     * Opens a log file and reads its header.
+     */
+    public Reader(File file) throws IOException {
+      InputStream fileIn = new BufferedInputStream(new FileInputStream(file));
+
+      try {
+        in = new DataInputStream(new GZIPInputStream(fileIn));
+
+        if (in.readInt() != MAGIC) {
+          throw new IOException("Not a packet log: " + file);
+        }
+
+        int version = in.readUnsignedByte();
+
+        if (version != VERSION) {
+          throw new IOException("Unsupported packet log version " + version + ": " + file);
+        }
+
+        startTime = in.readLong();
+      } catch (IOException ex) {
+        fileIn.close();
+        throw ex;
+      }
+    }
+
+    /**
+     * The time the recording started, in milliseconds since the epoch.
+     */
+    public long getStartTime() {
+      return startTime;
+    }
+
+    /**
+     * Returns the next Record in the log, or null if the end of the log has been reached. A log
+     * that was cut off (for example, because the recording process was killed) is treated as
+     * ending after the last complete record. Throws an IOException if a record's length isn't a
+     * valid packet length, since the log is then corrupt rather than cut off.
+     */
+    public Record next() throws IOException {
+      try {
+        long delta = readVarInt();
+
+        if (delta == -1) {
+          return null;
+        }
+
+        long length = readVarInt();
+
+        if (length == -1) {
+          return null;
+        }
+
+        if (length < PacketFramer.MIN_PACKET_LENGTH || length > PacketFramer.MAX_PACKET_LENGTH) {
+          throw new IOException("Invalid packet length in log: " + length);
+        }
+
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        time += delta;
+        return new Record(time, bytes);
+      } catch (EOFException ex) {
+        return null;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+
+    /**
+     * Reads a variable-length integer. Returns -1 if the end of the stream is reached before the
+     * first byte.
+     */
+    private long readVarInt() throws IOException {
+      long value = 0;
+      int shift = 0;
+
+      while (true) {
+        int b = in.read();
+
+        if (b == -1) {
+          if (shift == 0) {
+            return -1;
+          }
+
+          throw new EOFException();
+        }
+
+        value |= (long) (b & 0x7f) << shift;
+
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+
+        shift += 7;
+      }
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package com.walkertribe.artemisdisplay.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import com.walkertribe.artemisdisplay.metrics.FlightRecorder;
+
+/**
+ * A proxy that sits between the display and an Artemis server, recording every packet the server
+ * sends to a packet log. It listens on an ephemeral loopback port and accepts a single client;
+ * everything the client sends is passed through to the server untouched. When either side closes
+ * the connection, the other side is closed as well and the log is finished.
+ * @author rjwut
+ */
+public class PacketRecorder {
+  private static final int ACCEPT_TIMEOUT_MS = 5000;
+  private static final long FLUSH_INTERVAL_MS = 1000;
+
+  private Socket upstream;
+  private File file;
+  private ServerSocket serverSocket;
+  private Socket client;
+
+  /**
+   * Creates a PacketRecorder that will relay to the given (already connected) server Socket and
+   * record to the given file.
+   */
+  public PacketRecorder(Socket upstream, File file) {
+    this.upstream = upstream;
+    this.file = file;
+  }
+
+  /**
+   * Opens the local port and starts waiting for the client in a background thread. Returns the
+   * port number the client should connect to.
+   */
+  public int start() throws IOException {
+    serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MS);
+    Thread thread = new Thread(this::run, "PacketRecorder");
+    thread.setDaemon(true);
+    thread.start();
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Accepts the client, then relays packets until either side disconnects. The log file isn't
+   * created until the client has connected, so a timed-out accept leaves nothing behind.
+   */
+  private void run() {
+    try {
+      client = serverSocket.accept();
+      serverSocket.close();
+      Thread clientThread = new Thread(this::relayClient, "PacketRecorder-client");
+      clientThread.setDaemon(true);
+      clientThread.start();
+
+      try (PacketLog.Writer writer = new PacketLog.Writer(file)) {
+        relayServer(writer);
+      }
+    } catch (IOException ex) {
+      // Either side has gone away; fall through and close everything
+    } finally {
+      close();
+    }
+  }
+
+  /**
+   * Passes everything the server sends through to the client, recording each packet.
+   */
+  private void relayServer(PacketLog.Writer writer) throws IOException {
+    PacketFramer framer = new PacketFramer(upstream.getInputStream());
+    OutputStream out = client.getOutputStream();
+    long lastFlush = System.currentTimeMillis();
+
+    while (framer.next()) {
+      out.write(framer.getBuffer(), 0, framer.getLength());
+      writer.write(framer.getBuffer(), framer.getLength());
+      FlightRecorder.packetWire("record", PacketFramer.getPacketType(framer.getBuffer()), framer.getLength());
+      long now = System.currentTimeMillis();
+
+      if (now - lastFlush >= FLUSH_INTERVAL_MS) {
+        writer.flush();
+        lastFlush = now;
+      }
+    }
+  }
+
+  /**
+   * Passes everything the client sends through to the server.
+   */
+  private void relayClient() {
+    byte[] buffer = new byte[4096];
+
+    try {
+      InputStream in = client.getInputStream();
+      OutputStream out = upstream.getOutputStream();
+      int count;
+
+      while ((count = in.read(buffer)) != -1) {
+        out.write(buffer, 0, count);
+      }
+    } catch (IOException ex) {
+      // Either side has gone away
+    } finally {
+      close();
+    }
+  }
+
+  /**
+   * Closes both connections.
+   */
+  private synchronized void close() {
+    closeQuietly(serverSocket);
+    closeQuietly(client);
+    closeQuietly(upstream);
+  }
+
+  private static void closeQuietly(AutoCloseable closeable) {
+    if (closeable == null) {
+      return;
+    }
+
+    try {
+      closeable.close();
+    } catch (Exception ex) {
+      // don't care
+    }
+  }
+}
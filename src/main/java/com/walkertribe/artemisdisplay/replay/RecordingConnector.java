@@ -0,0 +1,76 @@
+package com.walkertribe.artemisdisplay.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import com.walkertribe.artemisdisplay.Connector;
+import com.walkertribe.ian.iface.ArtemisNetworkInterface;
+import com.walkertribe.ian.iface.ThreadedArtemisNetworkInterface;
+
+/**
+ * A Connector that records the session to a packet log. It connects to the server itself, then
+ * routes the ArtemisNetworkInterface through a PacketRecorder. Existing files are never
+ * overwritten: if the requested file already exists (for example, because this is a reconnect),
+ * a number is appended to the file name.
+ * @author rjwut
+ */
+public class RecordingConnector extends Connector {
+  private File file;
+
+  /**
+   * Creates a RecordingConnector that will connect to the named host and record to the given file.
+   */
+  public RecordingConnector(String host, File file, Listener listener) {
+    super(host, listener);
+    this.file = file;
+  }
+
+  @Override
+  protected ArtemisNetworkInterface connect() throws IOException {
+    Socket upstream = new Socket();
+
+    try {
+      upstream.connect(new InetSocketAddress(getHost(), getPort()), CONNECT_TIMEOUT_MS);
+    } catch (IOException ex) {
+      upstream.close();
+      throw ex;
+    }
+
+    int port;
+
+    try {
+      port = new PacketRecorder(upstream, nextFile()).start();
+    } catch (IOException | RuntimeException ex) {
+      upstream.close();
+      throw ex;
+    }
+
+    String loopback = InetAddress.getLoopbackAddress().getHostAddress();
+    return new ThreadedArtemisNetworkInterface(loopback, port, CONNECT_TIMEOUT_MS);
+  }
+
+  /**
+   * Returns the first file name in the sequence file, file-2, file-3... that doesn't exist yet.
+   */
+  private File nextFile() {
+    if (!file.exists()) {
+      return file;
+    }
+
+    String name = file.getName();
+    int dotPos = name.lastIndexOf('.');
+    String base = dotPos == -1 ? name : name.substring(0, dotPos);
+    String ext = dotPos == -1 ? "" : name.substring(dotPos);
+    File candidate;
+    int i = 2;
+
+    do {
+      candidate = new File(file.getAbsoluteFile().getParentFile(), base + "-" + i++ + ext);
+    } while (candidate.exists());
+
+    return candidate;
+  }
+}
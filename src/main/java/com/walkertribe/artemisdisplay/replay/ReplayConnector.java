@@ -0,0 +1,48 @@
+package com.walkertribe.artemisdisplay.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+
+import com.walkertribe.artemisdisplay.Connector;
+import com.walkertribe.ian.iface.ArtemisNetworkInterface;
+import com.walkertribe.ian.iface.ThreadedArtemisNetworkInterface;
+
+/**
+ * A Connector that plays back a packet log instead of connecting to a real server. It starts a
+ * ReplayServer on a loopback port and connects to it, so the recorded packets go through the same
+ * ArtemisNetworkInterface as live ones.
+ * @author rjwut
+ */
+public class ReplayConnector extends Connector {
+  private File file;
+  private float speed;
+  private ReplayStepper stepper;
+
+  /**
+   * Creates a ReplayConnector that will play back the given file at the given speed.
+   */
+  public ReplayConnector(File file, float speed, Listener listener) {
+    super("localhost", listener);
+    this.file = file;
+    this.speed = speed;
+  }
+
+  /**
+   * Creates a ReplayConnector that will play back the given file as the given ReplayStepper
+   * advances.
+   */
+  public ReplayConnector(File file, ReplayStepper stepper, Listener listener) {
+    super("localhost", listener);
+    this.file = file;
+    this.stepper = stepper;
+  }
+
+  @Override
+  protected ArtemisNetworkInterface connect() throws IOException {
+    ReplayServer server = stepper != null ? new ReplayServer(file, stepper) : new ReplayServer(file, speed);
+    int port = server.start();
+    String loopback = InetAddress.getLoopbackAddress().getHostAddress();
+    return new ThreadedArtemisNetworkInterface(loopback, port, CONNECT_TIMEOUT_MS);
+  }
+}
@@ -0,0 +1,186 @@
+package com.walkertribe.artemisdisplay.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import com.walkertribe.artemisdisplay.metrics.FlightRecorder;
+
+/**
+ * Plays a packet log back to a client as if it were an Artemis server. Packets are sent with the
+ * same timing they were recorded with, scaled by a speed factor: 2 plays back twice as fast, while
+ * 0 sends packets as fast as the client will accept them. Anything the client sends is read and
+ * discarded. Since the bytes sent are exactly the bytes that were recorded, the client's World,
+ * Grid and Displays receive the same sequence of events every time. A ReplayServer can also be
+ * driven by a ReplayStepper instead of the clock, so that the timing is reproducible as well.
+ * @author rjwut
+ */
+public class ReplayServer {
+  private static final int ACCEPT_TIMEOUT_MS = 5000;
+
+  private File file;
+  private float speed;
+  private ReplayStepper stepper;
+  private ServerSocket serverSocket;
+
+  /**
+   * Creates a ReplayServer that will play back the given log file at the given speed.
+   */
+  public ReplayServer(File file, float speed) {
+    if (speed < 0) {
+      throw new IllegalArgumentException("Replay speed cannot be negative");
+    }
+
+    this.file = file;
+    this.speed = speed;
+  }
+
+  /**
+   * Creates a ReplayServer that will play back the given log file as the given ReplayStepper
+   * advances, ignoring the recorded timing.
+   */
+  public ReplayServer(File file, ReplayStepper stepper) {
+    this.file = file;
+    this.stepper = stepper;
+  }
+
+  /**
+   * Opens an ephemeral loopback port and plays the log back to the first client that connects to
+   * it, in a background thread. Returns the port number the client should connect to.
+   */
+  public int start() throws IOException {
+    serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MS);
+    Thread thread = new Thread(() -> {
+      try (Socket client = serverSocket.accept()) {
+        serverSocket.close();
+        serve(client, false);
+      } catch (IOException ex) {
+        // Client went away or never connected
+      } finally {
+        try {
+          serverSocket.close();
+        } catch (IOException ex) {
+          // don't care
+        }
+      }
+    }, "ReplayServer");
+    thread.setDaemon(true);
+    thread.start();
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Plays the log back to the given client. If loop is true, playback starts over when the end of
+   * the log is reached; otherwise, the connection is held open with no further packets until the
+   * client disconnects, so the client is left looking at the final state of the recording. Returns
+   * the number of packets sent.
+   */
+  public long serve(Socket client, boolean loop) throws IOException {
+    Drainer drainer = new Drainer(client.getInputStream());
+    drainer.start();
+    OutputStream out = new BufferedOutputStream(client.getOutputStream());
+    long sent = 0;
+
+    try {
+      do {
+        sent += play(out, drainer, sent);
+      } while (loop && drainer.isAlive());
+
+      out.flush();
+    } finally {
+      if (stepper != null) {
+        stepper.finish(sent);
+      }
+    }
+
+    try {
+      drainer.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+
+    return sent;
+  }
+
+  /**
+   * Plays the log once. The number of packets sent by earlier plays is given so that a
+   * ReplayStepper can be told the total. Returns the number of packets sent by this play.
+   */
+  private long play(OutputStream out, Drainer drainer, long sentBefore) throws IOException {
+    long sent = 0;
+
+    try (PacketLog.Reader reader = new PacketLog.Reader(file)) {
+      long start = System.nanoTime();
+      PacketLog.Record record;
+
+      while (drainer.isAlive() && (record = reader.next()) != null) {
+        if (stepper != null) {
+          if (!stepper.isAllowed(record.getTime())) {
+            out.flush();
+
+            try {
+              stepper.awaitTurn(record.getTime(), sentBefore + sent);
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+              break;
+            }
+          }
+        } else if (speed > 0) {
+          long due = start + (long) (record.getTime() * 1000000L / speed);
+          long wait = (due - System.nanoTime()) / 1000000L;
+
+          if (wait > 0) {
+            out.flush();
+
+            try {
+              Thread.sleep(wait);
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+              break;
+            }
+          }
+        }
+
+        byte[] bytes = record.getBytes();
+        out.write(bytes);
+        FlightRecorder.packetWire("replay", PacketFramer.getPacketType(bytes), bytes.length);
+        sent++;
+      }
+    }
+
+    return sent;
+  }
+
+  /**
+   * Reads and discards everything the client sends. When the client disconnects, this thread
+   * ends, which signals playback to stop.
+   */
+  static class Drainer extends Thread {
+    private InputStream in;
+
+    Drainer(InputStream in) {
+      super("ReplayServer-drain");
+      setDaemon(true);
+      this.in = in;
+    }
+
+    @Override
+    public void run() {
+      byte[] buffer = new byte[1024];
+
+      try {
+        while (in.read(buffer) != -1) {
+          // discard
+        }
+      } catch (IOException ex) {
+        // client went away
+      }
+    }
+  }
+}
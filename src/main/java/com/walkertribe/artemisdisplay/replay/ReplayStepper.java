@@ -0,0 +1,114 @@
+package com.walkertribe.artemisdisplay.replay;
+
+import java.io.IOException;
+
+import com.walkertribe.ian.iface.Listener;
+import com.walkertribe.ian.protocol.ArtemisPacket;
+
+/**
+ * Lets a ReplayServer's playback be advanced in steps instead of in real time. The ReplayServer
+ * only sends records up to the log time given to advance(), and advance() doesn't return until
+ * those records have been sent and the client's ArtemisNetworkInterface has dispatched every one
+ * of them. This way, the client sees exactly the same packets before each step on every run, no
+ * matter how long the steps take.
+ *
+ * A ReplayStepper must be added as a listener to the client's ArtemisNetworkInterface after all
+ * the other listeners. IAN dispatches each packet to its listeners in the order they were added,
+ * so when this listener has seen a packet, everything else has already handled it.
+ * @author rjwut
+ */
+public class ReplayStepper {
+  private static final long START_TIMEOUT_MS = 10000;
+  private static final long DISPATCH_TIMEOUT_MS = 5000;
+
+  private long allowedTime = -1;
+  private long pendingTime = -1;
+  private boolean idle;
+  private boolean finished;
+  private long sent;
+  private long dispatched;
+
+  /**
+   * Allows the ReplayServer to send every record with a time of up to the given number of
+   * milliseconds into the log, then blocks until they have been sent and dispatched. Throws an
+   * IOException if playback doesn't start. If some packets still haven't been dispatched after a
+   * few seconds (because the client dropped them, for example), a warning is printed and playback
+   * continues from the packets that were sent.
+   */
+  public synchronized void advance(long time) throws IOException, InterruptedException {
+    allowedTime = Math.max(allowedTime, time);
+    notifyAll();
+    long deadline = System.currentTimeMillis() + START_TIMEOUT_MS;
+
+    while (!finished && !(idle && pendingTime > allowedTime)) {
+      long wait = deadline - System.currentTimeMillis();
+
+      if (wait <= 0) {
+        throw new IOException("Replay did not start");
+      }
+
+      wait(wait);
+    }
+
+    deadline = System.currentTimeMillis() + DISPATCH_TIMEOUT_MS;
+
+    while (dispatched < sent) {
+      long wait = deadline - System.currentTimeMillis();
+
+      if (wait <= 0) {
+        System.err.println("Replay: " + (sent - dispatched) + " packet(s) were not dispatched");
+        dispatched = sent;
+        break;
+      }
+
+      wait(wait);
+    }
+  }
+
+  /**
+   * Counts a packet that the client has dispatched.
+   */
+  @Listener
+  public synchronized void onPacket(ArtemisPacket pkt) {
+    dispatched++;
+
+    if (dispatched >= sent) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Returns true if the ReplayServer may send a record with the given time now.
+   */
+  synchronized boolean isAllowed(long time) {
+    return time <= allowedTime;
+  }
+
+  /**
+   * Invoked by the ReplayServer when the next record's time is beyond the time given to advance(),
+   * after it has sent and flushed the given number of packets. Blocks until advance() is called
+   * with a time that allows the record to be sent.
+   */
+  synchronized void awaitTurn(long time, long sentSoFar) throws InterruptedException {
+    sent = sentSoFar;
+    pendingTime = time;
+    idle = true;
+    notifyAll();
+
+    while (time > allowedTime) {
+      wait();
+    }
+
+    idle = false;
+  }
+
+  /**
+   * Invoked by the ReplayServer when playback ends, after it has sent and flushed the given number
+   * of packets.
+   */
+  synchronized void finish(long sentSoFar) {
+    sent = sentSoFar;
+    finished = true;
+    notifyAll();
+  }
+}
@@ -0,0 +1,66 @@
+package com.walkertribe.artemisdisplay.util;
+
+/**
+ * Table-based sine and cosine. The table covers one full turn with a power-of-two number of
+ * entries, and values between entries are linearly interpolated. With the default 4,096 entries,
+ * the error is below 3e-7, which is far less than a pixel at any radius the displays draw.
+ * @author rjwut
+ */
+public class Trig {
+  /**
+   * A table with 4,096 entries, which is accurate enough for any drawing.
+   */
+  public static final Trig DEFAULT = new Trig(12);
+
+  private static final int MIN_BITS = 4;
+  private static final int MAX_BITS = 20;
+
+  private double[] table;
+  private int mask;
+  private int quarter;
+  private double scale;
+
+  /**
+   * Creates a table with 2 ^ bits entries. More entries are more precise but use more memory.
+   */
+  public Trig(int bits) {
+    if (bits < MIN_BITS || bits > MAX_BITS) {
+      throw new IllegalArgumentException("Table bits must be between " + MIN_BITS + " and " + MAX_BITS);
+    }
+
+    int size = 1 << bits;
+    mask = size - 1;
+    quarter = size / 4;
+    scale = size / (Math.PI * 2);
+    table = new double[size + 1]; // the extra entry saves wrapping when interpolating
+
+    for (int i = 0; i <= size; i++) {
+      table[i] = Math.sin(i / scale);
+    }
+  }
+
+  /**
+   * Returns the sine of the given angle in radians.
+   */
+  public double sin(double theta) {
+    return lookup(theta * scale, 0);
+  }
+
+  /**
+   * Returns the cosine of the given angle in radians.
+   */
+  public double cos(double theta) {
+    return lookup(theta * scale, quarter);
+  }
+
+  /**
+   * Interpolates the table at the given position, measured in entries and shifted by the given
+   * number of entries.
+   */
+  private double lookup(double position, int shift) {
+    double floor = Math.floor(position);
+    int i = (int) ((long) floor + shift & mask);
+    double a = table[i];
+    return a + (table[i + 1] - a) * (position - floor);
+  }
+}
@@ -0,0 +1,83 @@
+package com.walkertribe.artemisdisplay.render;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that an ArrowShape is placed where PolygonBuilder would put the same polygon. Both use the
+ * Trig table, but round differently, so the vertices can differ by a few table errors times the
+ * radius.
+ * @author rjwut
+ */
+public class ArrowShapeTest {
+  private static final double[] THETAS = { 0, Math.PI * 0.8, Math.PI, Math.PI * 1.2 };
+  private static final double[] RADII = { 1, 1, 0.5, 1 };
+  private static final double TOLERANCE_PER_RADIUS = 1e-6;
+  private static final int PLACEMENTS = 10000;
+
+  @Test
+  public void testMatchesPolygonBuilder() {
+    ArrowShape arrow = new ArrowShape();
+
+    for (int i = 0; i < THETAS.length; i++) {
+      arrow.add(THETAS[i], RADII[i]);
+    }
+
+    Random random = new Random(0);
+    double[] xs = new double[THETAS.length];
+    double[] ys = new double[THETAS.length];
+
+    for (int p = 0; p < PLACEMENTS; p++) {
+      double x = random.nextDouble() * 2000;
+      double y = random.nextDouble() * 2000;
+      double heading = (random.nextDouble() - 0.5) * Math.PI * 8;
+      double r = 1 + random.nextDouble() * 50;
+      double tolerance = TOLERANCE_PER_RADIUS * r;
+      PolygonBuilder builder = new PolygonBuilder(x, y);
+
+      for (int i = 0; i < THETAS.length; i++) {
+        builder.add(heading + THETAS[i], RADII[i] * r);
+      }
+
+      assertEquals(THETAS.length, arrow.place(x, y, heading, r).getVertices(xs, ys));
+
+      for (int i = 0; i < THETAS.length; i++) {
+        Point2D.Double expected = builder.get(i);
+        assertEquals(expected.x, xs[i], tolerance);
+        assertEquals(expected.y, ys[i], tolerance);
+      }
+
+      assertArrayEquals(coordinates(builder.toPath().getPathIterator(null)),
+          coordinates(arrow.getPath().getPathIterator(null)), tolerance);
+    }
+  }
+
+  /**
+   * Returns the coordinates of each segment in the path, followed by its type.
+   */
+  private static double[] coordinates(PathIterator iterator) {
+    double[] result = new double[THETAS.length * 3 + 1];
+    double[] coords = new double[6];
+    int i = 0;
+
+    for (; !iterator.isDone(); iterator.next()) {
+      int type = iterator.currentSegment(coords);
+
+      if (type != PathIterator.SEG_CLOSE) {
+        result[i++] = coords[0];
+        result[i++] = coords[1];
+      }
+
+      result[i++] = type;
+    }
+
+    assertEquals(result.length, i);
+    return result;
+  }
+}
@@ -0,0 +1,210 @@
+package com.walkertribe.artemisdisplay.render;
+
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Compares the shapes and colors IntRasterizer draws against Java2D filling the same shapes with
+ * antialiasing off and STROKE_PURE. The two can disagree about pixels whose centers lie exactly on
+ * an edge, so a few pixels are allowed to differ; colors must match to within rounding.
+ * @author rjwut
+ */
+public class IntRasterizerTest {
+  private static final int SIZE = 64;
+  private static final int SHAPES = 200;
+  private static final double MAX_EDGE_MISMATCH = 0.01;
+
+  private IntRasterizer raster;
+  private BufferedImage actual;
+  private BufferedImage expected;
+  private Random random;
+
+  @Before
+  public void setUp() {
+    raster = new IntRasterizer();
+    actual = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+    expected = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+    random = new Random(0);
+  }
+
+  @Test
+  public void testPolygonMatchesJava2D() {
+    ArrowShape arrow = new ArrowShape()
+        .add(0, 1)
+        .add(Math.PI * 0.8, 1)
+        .add(Math.PI, 0.5)
+        .add(Math.PI * 1.2, 1);
+    double[] xs = new double[4];
+    double[] ys = new double[4];
+    int mismatched = 0;
+    int filled = 0;
+
+    for (int i = 0; i < SHAPES; i++) {
+      arrow.place(randomCoordinate(), randomCoordinate(), random.nextDouble() * Math.PI * 2,
+          4 + random.nextDouble() * 20);
+      int n = arrow.getVertices(xs, ys);
+      Graphics2D g = beginActual();
+      raster.setColor(Color.WHITE);
+      raster.fillPolygon(xs, ys, n);
+      raster.end(g);
+      g.dispose();
+      filled += fillExpected(new Path2D.Double(arrow.getPath()), Color.WHITE);
+      mismatched += countMismatches(0);
+    }
+
+    assertMostlyMatch(mismatched, filled);
+  }
+
+  @Test
+  public void testCircleMatchesJava2D() {
+    int mismatched = 0;
+    int filled = 0;
+
+    for (int i = 0; i < SHAPES; i++) {
+      double x = randomCoordinate();
+      double y = randomCoordinate();
+      double r = 1 + random.nextDouble() * 20;
+      Graphics2D g = beginActual();
+      raster.setColor(Color.WHITE);
+      raster.fillCircle(x, y, r);
+      raster.end(g);
+      g.dispose();
+      filled += fillExpected(new Ellipse2D.Double(x - r, y - r, r * 2, r * 2), Color.WHITE);
+      mismatched += countMismatches(0);
+    }
+
+    assertMostlyMatch(mismatched, filled);
+  }
+
+  @Test
+  public void testBlendMatchesJava2D() {
+    Path2D.Double whole = square(0, SIZE);
+    Path2D.Double inner = square(SIZE / 4, SIZE / 2);
+    double[] xs = { SIZE / 4, SIZE * 3 / 4, SIZE * 3 / 4, SIZE / 4 };
+    double[] ys = { SIZE / 4, SIZE / 4, SIZE * 3 / 4, SIZE * 3 / 4 };
+    double[] wholeXs = { 0, SIZE, SIZE, 0 };
+    double[] wholeYs = { 0, 0, SIZE, SIZE };
+
+    for (int i = 0; i < SHAPES; i++) {
+      Color background = new Color(random.nextInt(0x1000000));
+      Color color = new Color(random.nextInt(), true);
+      Graphics2D g = beginActual();
+      raster.setColor(background);
+      raster.fillPolygon(wholeXs, wholeYs, 4);
+      raster.setColor(color);
+      raster.fillPolygon(xs, ys, 4);
+      raster.end(g);
+      g.dispose();
+      fillExpected(whole, background);
+      Graphics2D eg = createReferenceGraphics();
+      eg.setColor(color);
+      eg.fill(inner);
+      eg.dispose();
+      assertTrue("Blending " + color + " with alpha " + color.getAlpha() + " over " + background,
+          countMismatches(1) == 0);
+    }
+  }
+
+  /**
+   * Clears the actual image and begins rasterizing onto it.
+   */
+  private Graphics2D beginActual() {
+    Graphics2D g = actual.createGraphics();
+    g.setClip(0, 0, SIZE, SIZE);
+    raster.begin(g);
+    return g;
+  }
+
+  /**
+   * Clears the expected image, fills the given Shape onto it with Java2D, and returns the number
+   * of pixels filled.
+   */
+  private int fillExpected(Shape shape, Color color) {
+    Graphics2D g = createReferenceGraphics();
+    g.setColor(Color.BLACK);
+    g.fillRect(0, 0, SIZE, SIZE);
+    g.setColor(color);
+    g.fill(shape);
+    g.dispose();
+    int filled = 0;
+
+    for (int y = 0; y < SIZE; y++) {
+      for (int x = 0; x < SIZE; x++) {
+        if ((expected.getRGB(x, y) & 0xffffff) != 0) {
+          filled++;
+        }
+      }
+    }
+
+    return filled;
+  }
+
+  /**
+   * Returns a Graphics2D for the expected image, set up the way the rasterizer draws: no
+   * antialiasing, and shapes filled without stroke normalization.
+   */
+  private Graphics2D createReferenceGraphics() {
+    Graphics2D g = expected.createGraphics();
+    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+    g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+    return g;
+  }
+
+  /**
+   * Returns the number of pixels where any channel of the two images differs by more than the
+   * given tolerance.
+   */
+  private int countMismatches(int tolerance) {
+    int count = 0;
+
+    for (int y = 0; y < SIZE; y++) {
+      for (int x = 0; x < SIZE; x++) {
+        int a = actual.getRGB(x, y);
+        int e = expected.getRGB(x, y);
+
+        for (int shift = 0; shift < 24; shift += 8) {
+          if (Math.abs((a >> shift & 0xff) - (e >> shift & 0xff)) > tolerance) {
+            count++;
+            break;
+          }
+        }
+      }
+    }
+
+    return count;
+  }
+
+  private void assertMostlyMatch(int mismatched, int filled) {
+    assertTrue(mismatched + " of " + filled + " pixels differ",
+        filled > 0 && mismatched <= filled * MAX_EDGE_MISMATCH);
+  }
+
+  /**
+   * Returns a coordinate within the image, usually not on a pixel boundary, so that shapes are
+   * sometimes partly clipped.
+   */
+  private double randomCoordinate() {
+    return random.nextDouble() * (SIZE + 16) - 8;
+  }
+
+  private static Path2D.Double square(double offset, double size) {
+    Path2D.Double path = new Path2D.Double();
+    path.moveTo(offset, offset);
+    path.lineTo(offset + size, offset);
+    path.lineTo(offset + size, offset + size);
+    path.lineTo(offset, offset + size);
+    path.closePath();
+    return path;
+  }
+}
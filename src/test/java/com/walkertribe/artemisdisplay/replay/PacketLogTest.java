@@ -0,0 +1,251 @@
+package com.walkertribe.artemisdisplay.replay;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Round-trips packets through PacketFramer, PacketLog.Writer and PacketLog.Reader.
+ * @author rjwut
+ */
+public class PacketLogTest {
+  private static final int HEADER_LENGTH = 13; // magic, version, start time
+
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("packet-log-test", ".adpl");
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Test
+  public void testFramerSplitsStream() throws IOException {
+    List<byte[]> packets = samplePackets();
+    PacketFramer framer = new PacketFramer(new ByteArrayInputStream(concat(packets)));
+
+    for (byte[] packet : packets) {
+      assertTrue(framer.next());
+      assertArrayEquals(packet, Arrays.copyOf(framer.getBuffer(), framer.getLength()));
+      assertEquals(0x12345678 + packet.length, PacketFramer.getPacketType(framer.getBuffer()));
+    }
+
+    assertFalse(framer.next());
+  }
+
+  @Test(expected = IOException.class)
+  public void testFramerRejectsBadMagic() throws IOException {
+    byte[] packet = packet(0);
+    packet[0] = 0;
+    new PacketFramer(new ByteArrayInputStream(packet)).next();
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    List<byte[]> packets = samplePackets();
+    PacketFramer framer = new PacketFramer(new ByteArrayInputStream(concat(packets)));
+
+    try (PacketLog.Writer writer = new PacketLog.Writer(file)) {
+      while (framer.next()) {
+        writer.write(framer.getBuffer(), framer.getLength());
+      }
+    }
+
+    try (PacketLog.Reader reader = new PacketLog.Reader(file)) {
+      assertTrue(reader.getStartTime() > 0);
+      long lastTime = 0;
+
+      for (byte[] packet : packets) {
+        PacketLog.Record record = reader.next();
+        assertArrayEquals(packet, record.getBytes());
+        assertTrue(record.getTime() >= lastTime);
+        lastTime = record.getTime();
+      }
+
+      assertNull(reader.next());
+    }
+  }
+
+  @Test
+  public void testTruncatedLogEndsAtLastCompleteRecord() throws IOException {
+    List<byte[]> packets = samplePackets();
+
+    try (PacketLog.Writer writer = new PacketLog.Writer(file)) {
+      for (byte[] packet : packets) {
+        writer.write(packet, packet.length);
+      }
+    }
+
+    // Cut off the end of the last record, as if the recording process had been killed
+    byte[] plain = gunzip(file);
+    gzip(Arrays.copyOf(plain, plain.length - 10), file);
+
+    try (PacketLog.Reader reader = new PacketLog.Reader(file)) {
+      for (int i = 0; i < packets.size() - 1; i++) {
+        assertArrayEquals(packets.get(i), reader.next().getBytes());
+      }
+
+      assertNull(reader.next());
+    }
+  }
+
+  @Test
+  public void testLogCutAfterDeltaEndsAtLastCompleteRecord() throws IOException {
+    List<byte[]> packets = samplePackets();
+
+    try (PacketLog.Writer writer = new PacketLog.Writer(file)) {
+      for (byte[] packet : packets) {
+        writer.write(packet, packet.length);
+      }
+    }
+
+    // Cut the log right after the last record's delta, before its length
+    byte[] plain = gunzip(file);
+    int offset = HEADER_LENGTH;
+
+    for (int i = 0; i < packets.size() - 1; i++) {
+      offset = skipVarInt(plain, offset);
+      offset = skipVarInt(plain, offset) + packets.get(i).length;
+    }
+
+    gzip(Arrays.copyOf(plain, skipVarInt(plain, offset)), file);
+
+    try (PacketLog.Reader reader = new PacketLog.Reader(file)) {
+      for (int i = 0; i < packets.size() - 1; i++) {
+        assertArrayEquals(packets.get(i), reader.next().getBytes());
+      }
+
+      assertNull(reader.next());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testReaderRejectsBadLength() throws IOException {
+    try (PacketLog.Writer writer = new PacketLog.Writer(file)) {
+      // header only
+    }
+
+    // Append a record whose length is far larger than any packet
+    byte[] plain = gunzip(file);
+    byte[] corrupt = Arrays.copyOf(plain, plain.length + 6);
+    corrupt[plain.length] = 0;
+    corrupt[plain.length + 1] = (byte) 0xff;
+    corrupt[plain.length + 2] = (byte) 0xff;
+    corrupt[plain.length + 3] = (byte) 0xff;
+    corrupt[plain.length + 4] = (byte) 0xff;
+    corrupt[plain.length + 5] = 0x07;
+    gzip(corrupt, file);
+
+    try (PacketLog.Reader reader = new PacketLog.Reader(file)) {
+      reader.next();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testReaderRejectsOtherFiles() throws IOException {
+    gzip(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13 }, file);
+    new PacketLog.Reader(file).close();
+  }
+
+  /**
+   * Returns packets whose lengths need one, two and three bytes as variable-length integers.
+   */
+  private static List<byte[]> samplePackets() {
+    List<byte[]> packets = new ArrayList<>();
+    packets.add(packet(0));
+    packets.add(packet(100));
+    packets.add(packet(300));
+    packets.add(packet(20000));
+    return packets;
+  }
+
+  /**
+   * Builds a packet with a valid header and the given number of payload bytes. The packet type is
+   * derived from the length, so each one is distinguishable.
+   */
+  private static byte[] packet(int payloadLength) {
+    int length = 24 + payloadLength;
+    byte[] bytes = new byte[length];
+    writeIntLE(bytes, 0, 0xdeadbeef);
+    writeIntLE(bytes, 4, length);
+    writeIntLE(bytes, 8, 1);
+    writeIntLE(bytes, 16, length - 20);
+    writeIntLE(bytes, 20, 0x12345678 + length);
+
+    for (int i = 24; i < length; i++) {
+      bytes[i] = (byte) (i * 31);
+    }
+
+    return bytes;
+  }
+
+  /**
+   * Returns the offset just past the variable-length integer at the given offset.
+   */
+  private static int skipVarInt(byte[] bytes, int offset) {
+    while ((bytes[offset] & 0x80) != 0) {
+      offset++;
+    }
+
+    return offset + 1;
+  }
+
+  private static byte[] concat(List<byte[]> packets) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    for (byte[] packet : packets) {
+      out.write(packet);
+    }
+
+    return out.toByteArray();
+  }
+
+  private static byte[] gunzip(File source) throws IOException {
+    try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(source.toPath()))) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int count;
+
+      while ((count = in.read(buffer)) != -1) {
+        out.write(buffer, 0, count);
+      }
+
+      return out.toByteArray();
+    }
+  }
+
+  private static void gzip(byte[] bytes, File target) throws IOException {
+    try (GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(target))) {
+      out.write(bytes);
+    }
+  }
+
+  private static void writeIntLE(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) value;
+    bytes[offset + 1] = (byte) (value >>> 8);
+    bytes[offset + 2] = (byte) (value >>> 16);
+    bytes[offset + 3] = (byte) (value >>> 24);
+  }
+}
@@ -0,0 +1,106 @@
+package com.walkertribe.artemisdisplay.replay;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Steps a ReplayServer through a log with a ReplayStepper, checking that exactly the packets due by
+ * each step are delivered before advance() returns.
+ * @author rjwut
+ */
+public class ReplayStepperTest {
+  private static final int PACKET_LENGTH = 24;
+  private static final int[] DELTAS = { 0, 10, 10, 10 }; // records at 0, 10, 20 and 30 ms
+
+  private File file;
+  private Socket client;
+  private volatile int received;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("replay-stepper-test", ".adpl");
+
+    // Header and records as described in PacketLog, with chosen times
+    try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+      out.writeInt(0x4144504c);
+      out.writeByte(1);
+      out.writeLong(0);
+
+      for (int delta : DELTAS) {
+        out.writeByte(delta);
+        out.writeByte(PACKET_LENGTH);
+        out.write(packet());
+      }
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    if (client != null) {
+      client.close();
+    }
+
+    file.delete();
+  }
+
+  @Test
+  public void testAdvanceDeliversPacketsDueByEachStep() throws Exception {
+    ReplayStepper stepper = new ReplayStepper();
+    int port = new ReplayServer(file, stepper).start();
+    client = new Socket(InetAddress.getLoopbackAddress(), port);
+    PacketFramer framer = new PacketFramer(client.getInputStream());
+    Thread reader = new Thread(() -> {
+      try {
+        while (framer.next()) {
+          received++;
+          stepper.onPacket(null);
+        }
+      } catch (IOException ex) {
+        // socket closed
+      }
+    });
+    reader.setDaemon(true);
+    reader.start();
+
+    stepper.advance(0);
+    assertEquals(1, received);
+    stepper.advance(15);
+    assertEquals(2, received);
+    stepper.advance(15);
+    assertEquals(2, received);
+    stepper.advance(30);
+    assertEquals(4, received);
+    stepper.advance(1000);
+    assertEquals(4, received);
+  }
+
+  /**
+   * Builds a packet with a valid header and no payload.
+   */
+  private static byte[] packet() {
+    byte[] bytes = new byte[PACKET_LENGTH];
+    writeIntLE(bytes, 0, 0xdeadbeef);
+    writeIntLE(bytes, 4, PACKET_LENGTH);
+    writeIntLE(bytes, 8, 1);
+    writeIntLE(bytes, 16, PACKET_LENGTH - 20);
+    return bytes;
+  }
+
+  private static void writeIntLE(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) value;
+    bytes[offset + 1] = (byte) (value >>> 8);
+    bytes[offset + 2] = (byte) (value >>> 16);
+    bytes[offset + 3] = (byte) (value >>> 24);
+  }
+}
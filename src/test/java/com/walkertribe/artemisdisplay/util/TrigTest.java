@@ -0,0 +1,70 @@
+package com.walkertribe.artemisdisplay.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the Trig table against Math.sin() and Math.cos().
+ * @author rjwut
+ */
+public class TrigTest {
+  private static final double MAX_ERROR = 3e-7;
+  private static final int SWEEP_STEPS = 1 << 20;
+  private static final int RANDOM_SAMPLES = 1000000;
+
+  @Test
+  public void testDefaultErrorOverOneTurn() {
+    double maxError = 0;
+
+    for (int i = 0; i <= SWEEP_STEPS; i++) {
+      maxError = Math.max(maxError, error(Trig.DEFAULT, Math.PI * 2 * i / SWEEP_STEPS));
+    }
+
+    assertTrue("Max error " + maxError, maxError < MAX_ERROR);
+  }
+
+  @Test
+  public void testDefaultErrorForNegativeAndLargeAngles() {
+    Random random = new Random(0);
+    double maxError = 0;
+
+    for (int i = 0; i < RANDOM_SAMPLES; i++) {
+      maxError = Math.max(maxError, error(Trig.DEFAULT, (random.nextDouble() - 0.5) * 2000));
+    }
+
+    assertTrue("Max error " + maxError, maxError < MAX_ERROR);
+  }
+
+  @Test
+  public void testExactAtTableEntries() {
+    Trig trig = new Trig(4);
+
+    for (int i = -16; i <= 32; i++) {
+      double theta = Math.PI * 2 * i / 16;
+      assertEquals(Math.sin(theta), trig.sin(theta), 1e-12);
+      assertEquals(Math.cos(theta), trig.cos(theta), 1e-12);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooFewBits() {
+    new Trig(3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooManyBits() {
+    new Trig(21);
+  }
+
+  /**
+   * Returns the larger of the sine and cosine errors at the given angle.
+   */
+  private static double error(Trig trig, double theta) {
+    return Math.max(Math.abs(trig.sin(theta) - Math.sin(theta)),
+        Math.abs(trig.cos(theta) - Math.cos(theta)));
+  }
+}